@@ -159,6 +159,28 @@ export function useDeleteIngredientAlias() {
     return { deleted, loading, error, deleteAlias };
 }
 
+export interface ConfirmedImportLine {
+    aliasText: string
+    ingredientId: bigint
+    unitId: bigint
+}
+
+export function useConfirmImport() {
+    const { execute } = useAsync<void>();
+
+    const confirmImport = useCallback((lines: ConfirmedImportLine[]) => {
+        return execute(() =>
+            api.post('recipe/import/confirm', lines.map(line => ({
+                aliasText: line.aliasText,
+                ingredientId: line.ingredientId.toString(),
+                unitId: line.unitId.toString(),
+            }))).then(() => undefined)
+        );
+    }, [execute]);
+
+    return { confirmImport };
+}
+
 export function useSaveIngredientAlias() {
     const { execute } = useAsync<void>();
 
@@ -70,6 +70,7 @@ vi.mock('../../apiHooks', () => ({
     useFetchUnits: vi.fn(),
     useSaveRecipe: vi.fn(),
     useSaveIngredientAlias: vi.fn(),
+    useConfirmImport: vi.fn(),
 }));
 
 // ---------------------------------------------------------------------------
@@ -77,7 +78,7 @@ vi.mock('../../apiHooks', () => ({
 // ---------------------------------------------------------------------------
 
 import ImportPreviewForm from './ImportPreviewForm';
-import { useFetchIngredients, useFetchUnits, useSaveRecipe, useSaveIngredientAlias } from '../../apiHooks';
+import { useFetchIngredients, useFetchUnits, useSaveRecipe, useSaveIngredientAlias, useConfirmImport } from '../../apiHooks';
 import { ToastProvider } from '../../context/ToastContext';
 import { Unit } from '../../Unit/Unit';
 import { Units } from '../../Unit/Units';
@@ -107,6 +108,7 @@ const mockIngredient: Ingredient = {
 };
 const mockUnits = new Units([mockUnit]);
 const mockSaveRecipe = vi.fn();
+const mockConfirmImport = vi.fn();
 
 const resolvedIngredient: Ingredient = {
     id: BigInt(1),
@@ -170,6 +172,9 @@ function setupHooks({
     vi.mocked(useSaveIngredientAlias).mockReturnValue({
         saveIngredientAlias: vi.fn(),
     });
+    vi.mocked(useConfirmImport).mockReturnValue({
+        confirmImport: mockConfirmImport,
+    });
 }
 
 // ---------------------------------------------------------------------------
@@ -245,6 +250,29 @@ describe('ImportPreviewForm', () => {
         expect(mockNavigate).toHaveBeenCalledWith('/recipe/42');
     });
 
+    it('confirms kept auto-resolved lines once the recipe is saved', async () => {
+        setupHooks();
+        const { rerender } = render(<ImportPreviewForm draft={mockDraft} />, { wrapper: Wrapper });
+        fireEvent.click(screen.getByRole('button', { name: /save recipe/i }));
+        expect(mockConfirmImport).not.toHaveBeenCalled();
+
+        const savedRecipe: Recipe = {
+            id: BigInt(42),
+            name: 'Imported Cake',
+            method: 'Mix well.',
+            servings: 6,
+            ingredientQuantities: [],
+        };
+        setupHooks({ savedRecipe });
+        await act(async () => {
+            rerender(<ImportPreviewForm draft={mockDraft} />);
+        });
+
+        expect(mockConfirmImport).toHaveBeenCalledWith([
+            { aliasText: 'flour', ingredientId: BigInt(1), unitId: BigInt(1) },
+        ]);
+    });
+
     it('shows error toast when save fails', async () => {
         setupHooks();
         const { rerender } = render(<ImportPreviewForm draft={mockDraft} />, { wrapper: Wrapper });
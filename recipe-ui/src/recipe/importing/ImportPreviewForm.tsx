@@ -2,7 +2,14 @@ import { useEffect, useReducer, useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { MDXEditorMethods } from '@mdxeditor/editor';
 import { RecipeImportDraft, IngredientQuantity, Recipe } from '../../Types';
-import { useFetchIngredients, useFetchUnits, useSaveRecipe, useSaveIngredientAlias } from '../../apiHooks';
+import {
+    ConfirmedImportLine,
+    useConfirmImport,
+    useFetchIngredients,
+    useFetchUnits,
+    useSaveIngredientAlias,
+    useSaveRecipe,
+} from '../../apiHooks';
 import { formReducer, initialState } from '../recipeFormReducer';
 import MethodEditor from '../MethodEditor';
 import IngredientList from '../IngredientList';
@@ -22,6 +29,8 @@ function ImportPreviewForm({ draft }: Props) {
     const { units, fetchUnits } = useFetchUnits();
     const { savedRecipe, error: saveError, loading: saving, saveRecipe } = useSaveRecipe();
     const { saveIngredientAlias } = useSaveIngredientAlias();
+    const { confirmImport } = useConfirmImport();
+    const confirmedLines = useRef<ConfirmedImportLine[]>([]);
 
     const [state, dispatch] = useReducer(formReducer, {
         ...initialState,
@@ -68,9 +77,13 @@ function ImportPreviewForm({ draft }: Props) {
 
     useEffect(() => {
         if (!savedRecipe) return;
+        if (confirmedLines.current.length > 0) {
+            confirmImport(confirmedLines.current);
+            confirmedLines.current = [];
+        }
         showToast('Recipe saved successfully!', 'success');
         navigate(`/recipe/${savedRecipe.id}`);
-    }, [savedRecipe, navigate, showToast]);
+    }, [savedRecipe, navigate, showToast, confirmImport]);
 
     useEffect(() => {
         if (!saveError) return;
@@ -78,6 +91,16 @@ function ImportPreviewForm({ draft }: Props) {
     }, [saveError, showToast]);
 
     const handleSave = () => {
+        // Auto-resolved lines the user kept as they were; sent once the recipe has saved.
+        confirmedLines.current = draft.ingredientLines
+            .filter(line => line.ingredientNameHint && line.resolvedIngredient?.id != null && line.resolvedUnit)
+            .filter(line => ingredients.some(iq =>
+                iq.ingredient.id === line.resolvedIngredient!.id && iq.unit.id === line.resolvedUnit!.id))
+            .map(line => ({
+                aliasText: line.ingredientNameHint!,
+                ingredientId: line.resolvedIngredient!.id!,
+                unitId: line.resolvedUnit!.id,
+            }));
         const recipe: Recipe = {
             id: null,
             name,
@@ -0,0 +1,47 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IngredientLineParserBenchmark {
+
+    private static final String[] LINES = {
+            "200g plain flour",
+            "1 ½ cups caster sugar",
+            "2 large eggs",
+            "100 ml whole milk",
+            "1 tsp vanilla extract",
+            "2-3 tbsp cocoa powder",
+            "pinch of salt",
+            "1.5kg chicken thighs, skin on",
+            "3 cloves garlic, crushed",
+            "¼ cup olive oil",
+            "salt and pepper to taste",
+            "2 tablespoons fresh thyme leaves",
+    };
+
+    private static final String[] UNIT_HINTS = {
+            "g", "grams", "Cups", "tbsp", "tablespoons", "ml", "kg", "tsp", "pinch", "clove", "lb", "oz",
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void parse(Blackhole bh) {
+        for (String line : LINES) {
+            bh.consume(IngredientLineParser.parse(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public void normaliseUnitHint(Blackhole bh) {
+        for (String hint : UNIT_HINTS) {
+            bh.consume(IngredientLineParser.normaliseUnitHint(hint));
+        }
+    }
+}
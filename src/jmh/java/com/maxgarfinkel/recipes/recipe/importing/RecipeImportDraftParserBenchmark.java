@@ -0,0 +1,89 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a typical LLM response, including schema validation. {@code treeParseWithSchemaValidator}
+ * is the previous implementation (readTree, networknt validation, then a walk of the tree),
+ * kept as the baseline for the single-pass parser.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecipeImportDraftParserBenchmark {
+
+    private RecipeImportDraftParser parser;
+    private ObjectMapper objectMapper;
+    private JsonSchema schema;
+    private String response;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        parser = new RecipeImportDraftParser(objectMapper, new ImportMetrics(new SimpleMeterRegistry()));
+        try (InputStream stream = getClass().getResourceAsStream("/schema/recipe-extraction-schema.json")) {
+            schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7).getSchema(stream);
+        }
+        StringBuilder json = new StringBuilder("""
+                ```json
+                {"name": "Roast Chicken Traybake", "servings": 4,
+                 "method": "Heat the oven to 200C. Toss everything together and roast for an hour.",
+                 "ingredients": [""");
+        for (int i = 0; i < 15; i++) {
+            if (i > 0) json.append(',');
+            json.append("""
+                    {"rawText": "%d g ingredient %d", "quantity": %d, "unitName": "g", "ingredientName": "ingredient %d"}"""
+                    .formatted(i * 10, i, i * 10, i));
+        }
+        json.append("]}\n```");
+        response = json.toString();
+    }
+
+    @Benchmark
+    public RecipeImportDraft parse() throws Exception {
+        return parser.parse(response, "https://example.com", "LLM");
+    }
+
+    @Benchmark
+    public RecipeImportDraft treeParseWithSchemaValidator() throws Exception {
+        JsonNode root = objectMapper.readTree(StructuredOutput.stripMarkdownFences(response));
+        if (!schema.validate(root).isEmpty()) {
+            throw new IllegalStateException("Benchmark input must be valid");
+        }
+        RecipeImportDraft draft = new RecipeImportDraft();
+        draft.setSourceUrl("https://example.com");
+        draft.setExtractionSource("LLM");
+        draft.setName(root.path("name").asText(null));
+        JsonNode servings = root.path("servings");
+        if (!servings.isMissingNode() && !servings.isNull()) {
+            draft.setServings(servings.asInt());
+        }
+        draft.setMethod(root.path("method").asText(null));
+        List<RecipeImportDraft.ImportedIngredientLine> lines = new ArrayList<>();
+        for (JsonNode item : root.path("ingredients")) {
+            RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+            line.setRawText(item.path("rawText").asText(null));
+            JsonNode quantity = item.path("quantity");
+            if (!quantity.isMissingNode() && !quantity.isNull()) {
+                line.setQuantity(quantity.asDouble());
+            }
+            line.setUnitNameHint(item.path("unitName").asText(null));
+            line.setIngredientNameHint(item.path("ingredientName").asText(null));
+            lines.add(line);
+        }
+        draft.setIngredientLines(lines);
+        return draft;
+    }
+}
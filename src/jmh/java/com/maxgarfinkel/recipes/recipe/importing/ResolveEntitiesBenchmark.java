@@ -0,0 +1,86 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.maxgarfinkel.recipes.CatalogueVersion;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasService;
+import com.maxgarfinkel.recipes.ingredient.IngredientDto;
+import com.maxgarfinkel.recipes.ingredient.IngredientService;
+import com.maxgarfinkel.recipes.unit.UnitDto;
+import com.maxgarfinkel.recipes.unit.UnitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resolves a 20-line draft against a synthetic ingredient catalogue. Half the lines name
+ * catalogue ingredients spread through the list; the rest miss and fall through to the alias
+ * lookup. The resolver's lookup maps are built on the first invocation and reused afterwards,
+ * since the catalogue version never moves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResolveEntitiesBenchmark {
+
+    private static final int LINES = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int catalogueSize;
+
+    private ImportService importService;
+    private RecipeImportDraft draft;
+
+    @Setup
+    public void setUp() {
+        List<UnitDto> units = List.of(
+                new UnitDto(1L, "Gram", "g", null, 1.0),
+                new UnitDto(2L, "Kilogram", "kg", null, 1000.0),
+                new UnitDto(3L, "Millilitre", "ml", null, 1.0),
+                new UnitDto(4L, "Cup", "cup", null, 240.0),
+                new UnitDto(5L, "Tablespoon", "tbsp", null, 15.0),
+                new UnitDto(6L, "Teaspoon", "tsp", null, 5.0));
+        List<IngredientDto> ingredients = new ArrayList<>(catalogueSize);
+        for (int i = 0; i < catalogueSize; i++) {
+            ingredients.add(new IngredientDto("ingredient " + i, (long) i, units.getFirst()));
+        }
+
+        UnitService unitService = mock(UnitService.class);
+        IngredientService ingredientService = mock(IngredientService.class);
+        IngredientAliasService aliasService = mock(IngredientAliasService.class);
+        when(unitService.getUnitsAsDtos()).thenReturn(units);
+        when(ingredientService.getAllAsDto()).thenReturn(ingredients);
+        when(aliasService.findTarget(any())).thenReturn(Optional.empty());
+        ImportMetrics metrics = new ImportMetrics(new SimpleMeterRegistry());
+        IngredientResolver resolver = new IngredientResolver(unitService, ingredientService, aliasService,
+                new CatalogueVersion(), metrics);
+        importService = new ImportService(mock(UrlFetcher.class), mock(CompositeRecipeExtractor.class),
+                mock(VisionRecipeExtractor.class), resolver, aliasService, metrics);
+
+        draft = new RecipeImportDraft();
+        List<RecipeImportDraft.ImportedIngredientLine> lines = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+            boolean known = i % 2 == 0;
+            String name = known ? "Ingredient " + (long) i * catalogueSize / LINES : "unknown " + i;
+            line.setRawText("100 g " + name);
+            line.setQuantity(100.0);
+            line.setUnitNameHint(i % 3 == 0 ? "grams" : "g");
+            line.setIngredientNameHint(name);
+            lines.add(line);
+        }
+        draft.setIngredientLines(lines);
+    }
+
+    @Benchmark
+    public RecipeImportDraft resolveEntities() {
+        importService.resolveEntities(draft);
+        return draft;
+    }
+}
@@ -0,0 +1,47 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Extracts from saved pages under {@code src/jmh/resources/html}. The refiner is stubbed to
+ * decline, so this measures Jsoup parsing, JSON-LD lookup and the regex ingredient fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchemaOrgExtractorBenchmark {
+
+    @Param({"json-ld-recipe", "json-ld-graph", "no-structured-data"})
+    public String page;
+
+    private SchemaOrgExtractor extractor;
+    private String html;
+
+    @Setup
+    public void setUp() throws IOException {
+        LlmIngredientRefiner refiner = mock(LlmIngredientRefiner.class);
+        when(refiner.refine(any())).thenReturn(Optional.empty());
+        extractor = new SchemaOrgExtractor(new ObjectMapper(), refiner, mock(IngredientResolver.class),
+                new ImportMetrics(new SimpleMeterRegistry()), 0.8);
+        try (InputStream stream = getClass().getResourceAsStream("/html/" + page + ".html")) {
+            html = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Optional<RecipeImportDraft> extract() {
+        return extractor.extract(html, "https://example.com/recipes/roast-chicken");
+    }
+}
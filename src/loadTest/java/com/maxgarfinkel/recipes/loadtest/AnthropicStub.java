@@ -0,0 +1,192 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers {@code POST /v1/messages} in place of the Anthropic API, after a configurable delay
+ * and with a configurable share of 429 and 5xx responses. Ingredient-refinement prompts get a
+ * parsed array of the same length as the input; every other prompt gets a recipe object that
+ * passes the extraction schema. Requests that force a tool get the answer as a {@code tool_use}
+ * block, others as text. A system prompt seen before is reported as a prompt cache read, so the
+ * cache hit-rate metric moves under load as it would against the real API.
+ */
+class AnthropicStub implements HttpHandler {
+
+    private static final String REFINEMENT_PREFIX = "Parse the following ingredient strings";
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^\\s*(\\d+(?:\\.\\d+)?)");
+
+    private final ObjectMapper objectMapper;
+    private final Duration latency;
+    private final Duration jitter;
+    private final double rateLimitRate;
+    private final double serverErrorRate;
+
+    private final Set<String> cachedSystemPrompts = ConcurrentHashMap.newKeySet();
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder rateLimited = new LongAdder();
+    final LongAdder serverErrors = new LongAdder();
+
+    AnthropicStub(ObjectMapper objectMapper, LoadTestConfig config) {
+        this.objectMapper = objectMapper;
+        this.latency = config.anthropicLatency();
+        this.jitter = config.anthropicJitter();
+        this.rateLimitRate = config.anthropicRateLimitRate();
+        this.serverErrorRate = config.anthropicServerErrorRate();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        sleep(latency.toMillis() + (jitter.isZero() ? 0 : random.nextLong(jitter.toMillis())));
+
+        double roll = random.nextDouble();
+        if (roll < rateLimitRate) {
+            rateLimited.increment();
+            exchange.getResponseHeaders().set("retry-after", "1");
+            respond(exchange, 429, "{\"type\":\"error\",\"error\":{\"type\":\"rate_limit_error\"}}");
+            return;
+        }
+        if (roll < rateLimitRate + serverErrorRate) {
+            serverErrors.increment();
+            respond(exchange, 529, "{\"type\":\"error\",\"error\":{\"type\":\"overloaded_error\"}}");
+            return;
+        }
+
+        String system = systemText(request);
+        String prompt = system + promptText(request);
+        boolean refinement = prompt.startsWith(REFINEMENT_PREFIX);
+        JsonNode answer = refinement ? refinement(prompt) : recipe();
+        String toolName = request.path("tool_choice").path("name").asText(null);
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", "msg_stub")
+                .put("type", "message")
+                .put("role", "assistant")
+                .put("model", request.path("model").asText());
+        if (toolName != null) {
+            // Forced tool use: answer with a tool_use block, wrapping the refinement array as the tool expects.
+            JsonNode input = refinement ? objectMapper.createObjectNode().set("ingredients", answer) : answer;
+            response.put("stop_reason", "tool_use");
+            response.putArray("content").addObject()
+                    .put("type", "tool_use")
+                    .put("id", "toolu_stub")
+                    .put("name", toolName)
+                    .set("input", input);
+        } else {
+            response.put("stop_reason", "end_turn");
+            response.putArray("content").addObject().put("type", "text").put("text", answer.toString());
+        }
+        ObjectNode usage = response.putObject("usage")
+                .put("input_tokens", (prompt.length() - system.length()) / 4)
+                .put("output_tokens", answer.toString().length() / 4);
+        if (!system.isEmpty()) {
+            usage.put(cachedSystemPrompts.add(system) ? "cache_creation_input_tokens" : "cache_read_input_tokens",
+                    system.length() / 4);
+        }
+        respond(exchange, 200, objectMapper.writeValueAsString(response));
+    }
+
+    private String systemText(JsonNode request) {
+        JsonNode system = request.path("system");
+        if (system.isTextual()) {
+            return system.asText();
+        }
+        StringBuilder text = new StringBuilder();
+        for (JsonNode block : system) {
+            text.append(block.path("text").asText());
+        }
+        return text.toString();
+    }
+
+    private String promptText(JsonNode request) {
+        JsonNode content = request.path("messages").path(0).path("content");
+        if (content.isTextual()) {
+            return content.asText();
+        }
+        for (JsonNode block : content) {
+            if ("text".equals(block.path("type").asText())) {
+                return block.path("text").asText();
+            }
+        }
+        return "";
+    }
+
+    /** Finds the embedded JSON array of raw ingredient strings and returns one line per entry. */
+    private JsonNode refinement(String prompt) {
+        ArrayNode lines = objectMapper.createArrayNode();
+        for (int i = prompt.lastIndexOf('['); i >= 0; i = prompt.lastIndexOf('[', i - 1)) {
+            JsonNode candidate;
+            try {
+                candidate = objectMapper.readTree(prompt.substring(i));
+            } catch (IOException e) {
+                continue;
+            }
+            if (candidate.isArray() && !candidate.isEmpty() && candidate.get(0).isTextual()) {
+                for (JsonNode raw : candidate) {
+                    Matcher matcher = LEADING_NUMBER.matcher(raw.asText());
+                    ObjectNode line = lines.addObject()
+                            .put("rawText", raw.asText())
+                            .put("ingredientName", raw.asText().replaceFirst(LEADING_NUMBER.pattern(), "").trim())
+                            .putNull("unitName");
+                    if (matcher.find()) {
+                        line.put("quantity", Double.parseDouble(matcher.group(1)));
+                    } else {
+                        line.putNull("quantity");
+                    }
+                }
+                break;
+            }
+        }
+        return lines;
+    }
+
+    private JsonNode recipe() {
+        ObjectNode recipe = objectMapper.createObjectNode()
+                .put("name", "Stubbed recipe")
+                .put("servings", 4)
+                .put("method", "Combine everything and cook until done.");
+        ArrayNode ingredients = recipe.putArray("ingredients");
+        for (int i = 0; i < 8; i++) {
+            ingredients.addObject()
+                    .put("rawText", (i + 1) * 50 + " g ingredient " + i)
+                    .put("quantity", (i + 1) * 50)
+                    .put("unitName", "g")
+                    .put("ingredientName", "ingredient " + i);
+        }
+        return recipe;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
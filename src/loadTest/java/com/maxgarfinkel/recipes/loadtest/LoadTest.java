@@ -0,0 +1,218 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxgarfinkel.recipes.RecipesApplication;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots the application against a Testcontainers Postgres with a stub issuer, a stub Anthropic
+ * API and a static recipe site, then drives mixed CRUD and import traffic at fixed arrival rates
+ * and prints per-endpoint throughput and latency percentiles.
+ *
+ * <p>Arrivals follow an open model: each operation is started on schedule whether or not
+ * earlier requests have finished, so server slowdowns show up as latency rather than as a lower
+ * request rate. Run with {@code ./gradlew loadTest}; settings are listed in {@link LoadTestConfig}.</p>
+ */
+public class LoadTest {
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EndpointStats stats = new EndpointStats();
+    private final List<Long> ingredientIds = new ArrayList<>();
+    private final List<Long> recipeIds = new CopyOnWriteArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private HttpClient httpClient;
+    private String appUrl;
+    private String stubUrl;
+
+    LoadTest(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(LoadTestConfig.fromSystemProperties()).run();
+    }
+
+    void run() throws Exception {
+        HttpServer stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stubUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+        StubIssuer issuer = new StubIssuer(stubUrl + "/");
+        AnthropicStub anthropic = new AnthropicStub(objectMapper, config);
+        stubServer.createContext("/jwks", issuer);
+        stubServer.createContext("/v1/messages", anthropic);
+        stubServer.createContext("/recipes/", new RecipeSite(config.ingredients()));
+        stubServer.start();
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+             ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            postgres.start();
+            httpClient = HttpClient.newBuilder()
+                    .executor(requests)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            try (ConfigurableApplicationContext app = startApp(postgres)) {
+                appUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+                for (int i = 0; i < config.users(); i++) {
+                    tokens.add(issuer.mintToken("load-test|" + i));
+                }
+                seed();
+                drive(requests);
+            }
+        } finally {
+            stubServer.stop(0);
+        }
+
+        System.out.printf("%nMeasured %s after %s warm-up%n%n", config.duration(), config.warmup());
+        stats.print(System.out, config.duration());
+        System.out.printf("%nAnthropic stub: %d requests, %d rate limited, %d server errors%n",
+                anthropic.requests.sum(), anthropic.rateLimited.sum(), anthropic.serverErrors.sum());
+    }
+
+    private ConfigurableApplicationContext startApp(PostgreSQLContainer<?> postgres) {
+        return new SpringApplicationBuilder(RecipesApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword(),
+                "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + stubUrl + "/",
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + stubUrl + "/jwks",
+                "--spring.security.oauth2.resourceserver.jwt.audiences=" + StubIssuer.AUDIENCE,
+                "--anthropic.api-key=load-test",
+                "--anthropic.base-url=" + stubUrl);
+    }
+
+    private void seed() throws Exception {
+        for (int i = 0; i < config.ingredients(); i++) {
+            JsonNode created = send("POST", "/api/v1/ingredient/",
+                    Map.of("name", "ingredient " + i, "defaultUnit", Map.of("id", 1)));
+            ingredientIds.add(created.path("id").asLong());
+        }
+        for (int i = 0; i < 50; i++) {
+            recipeIds.add(send("POST", "/api/v1/recipe/", recipeBody()).path("id").asLong());
+        }
+    }
+
+    private void drive(ExecutorService requests) throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Operation.values().length);
+        try {
+            config.rates().forEach((operation, rate) -> {
+                if (rate <= 0) return;
+                long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+                scheduler.scheduleAtFixedRate(() -> requests.submit(() -> execute(operation)),
+                        ThreadLocalRandom.current().nextLong(periodNanos), periodNanos, TimeUnit.NANOSECONDS);
+            });
+            Thread.sleep(config.warmup().toMillis());
+            stats.startRecording();
+            Thread.sleep(config.duration().toMillis());
+            stats.stopRecording();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void execute(Operation operation) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = switch (operation) {
+                case LIST_INGREDIENTS -> get("/api/v1/ingredient/");
+                case LIST_UNITS -> get("/api/v1/unit/");
+                case GET_RECIPE -> get("/api/v1/recipe/" + randomRecipeId());
+                case CREATE_RECIPE -> {
+                    JsonNode created = send("POST", "/api/v1/recipe/", recipeBody());
+                    recipeIds.add(created.path("id").asLong());
+                    yield true;
+                }
+                case UPDATE_RECIPE -> {
+                    send("PUT", "/api/v1/recipe/" + randomRecipeId(), recipeBody());
+                    yield true;
+                }
+                case IMPORT_SCHEMA_ORG -> importPreview(stubUrl + "/recipes/" + sequence.incrementAndGet() + ".html");
+                case IMPORT_LLM -> importPreview(stubUrl + "/recipes/plain/" + sequence.incrementAndGet() + ".html");
+            };
+        } catch (Exception e) {
+            success = false;
+        }
+        stats.record(operation, System.nanoTime() - start, success);
+    }
+
+    private boolean get(String path) throws IOException, InterruptedException {
+        return exchange(request(path).GET().build()).statusCode() == 200;
+    }
+
+    private boolean importPreview(String url) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("url", url));
+        HttpRequest request = request("/api/v1/recipe/import/preview")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return exchange(request).statusCode() == 200;
+    }
+
+    private JsonNode send(String method, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest request = request(path)
+                .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = exchange(request);
+        if (response.statusCode() != 200) {
+            throw new IOException(method + " " + path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> exchange(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        String token = tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()));
+        return HttpRequest.newBuilder(URI.create(appUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json");
+    }
+
+    private Map<String, Object> recipeBody() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Map<String, Object>> quantities = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Long ingredientId = ingredientIds.get(random.nextInt(ingredientIds.size()));
+            quantities.add(Map.of("quantity", random.nextInt(1, 500), "ingredient", Map.of("id", ingredientId),
+                    "unit", Map.of("id", 1)));
+        }
+        return Map.of(
+                "name", "Load test recipe " + sequence.incrementAndGet(),
+                "method", "Mix everything and bake.",
+                "servings", 4,
+                "ingredientQuantities", quantities);
+    }
+
+    private long randomRecipeId() {
+        return recipeIds.get(ThreadLocalRandom.current().nextInt(recipeIds.size()));
+    }
+}
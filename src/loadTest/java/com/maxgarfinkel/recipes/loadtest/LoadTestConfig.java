@@ -0,0 +1,45 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load-test settings, read from {@code loadtest.*} system properties. The Gradle
+ * {@code loadTest} task forwards these from {@code -Dloadtest.x=y} on the command line.
+ */
+record LoadTestConfig(Duration warmup,
+                      Duration duration,
+                      int ingredients,
+                      int users,
+                      Map<Operation, Double> rates,
+                      Duration anthropicLatency,
+                      Duration anthropicJitter,
+                      double anthropicRateLimitRate,
+                      double anthropicServerErrorRate) {
+
+    static LoadTestConfig fromSystemProperties() {
+        Map<Operation, Double> rates = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            rates.put(operation, doubleProperty("rate." + operation.key(), operation.defaultRate()));
+        }
+        return new LoadTestConfig(
+                Duration.parse(property("warmup", "PT10S")),
+                Duration.parse(property("duration", "PT60S")),
+                Integer.parseInt(property("ingredients", "500")),
+                Integer.parseInt(property("users", "20")),
+                rates,
+                Duration.ofMillis(Long.parseLong(property("anthropic.latency-ms", "800"))),
+                Duration.ofMillis(Long.parseLong(property("anthropic.jitter-ms", "400"))),
+                doubleProperty("anthropic.rate-limit-rate", 0.02),
+                doubleProperty("anthropic.server-error-rate", 0.01));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(property(name, Double.toString(defaultValue)));
+    }
+}
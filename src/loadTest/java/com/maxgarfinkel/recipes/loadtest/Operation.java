@@ -0,0 +1,34 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+/** The endpoints the load test drives, with their default request rates (per second). */
+enum Operation {
+    LIST_INGREDIENTS("list-ingredients", "GET /api/v1/ingredient/", 20),
+    LIST_UNITS("list-units", "GET /api/v1/unit/", 20),
+    GET_RECIPE("get-recipe", "GET /api/v1/recipe/{id}", 20),
+    CREATE_RECIPE("create-recipe", "POST /api/v1/recipe/", 5),
+    UPDATE_RECIPE("update-recipe", "PUT /api/v1/recipe/{id}", 5),
+    IMPORT_SCHEMA_ORG("import-schema-org", "POST /api/v1/recipe/import/preview (JSON-LD page)", 2),
+    IMPORT_LLM("import-llm", "POST /api/v1/recipe/import/preview (plain page)", 1);
+
+    private final String key;
+    private final String label;
+    private final double defaultRate;
+
+    Operation(String key, String label, double defaultRate) {
+        this.key = key;
+        this.label = label;
+        this.defaultRate = defaultRate;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String label() {
+        return label;
+    }
+
+    double defaultRate() {
+        return defaultRate;
+    }
+}
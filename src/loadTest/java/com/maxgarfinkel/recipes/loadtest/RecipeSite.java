@@ -0,0 +1,63 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves recipe pages for the importer to fetch. {@code /recipes/{n}.html} carries schema.org
+ * JSON-LD naming catalogue ingredients; {@code /recipes/plain/{n}.html} has only prose, so
+ * imports fall through to the LLM extractor.
+ */
+class RecipeSite implements HttpHandler {
+
+    private static final String FILLER = "<p>A long introduction about this recipe, the season and the kitchen "
+            + "it was first cooked in, as recipe sites like to have.</p>\n";
+
+    private final int ingredients;
+
+    RecipeSite(int ingredients) {
+        this.ingredients = ingredients;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String name = path.substring(path.lastIndexOf('/') + 1).replace(".html", "");
+        int seed = Math.floorMod(name.hashCode(), Math.max(ingredients, 1));
+        String html = path.startsWith("/recipes/plain/") ? plainPage(seed) : jsonLdPage(seed);
+
+        byte[] body = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String jsonLdPage(int seed) {
+        StringBuilder recipeIngredients = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            if (i > 0) recipeIngredients.append(", ");
+            recipeIngredients.append("\"").append((i + 1) * 25).append(" g ingredient ")
+                    .append((seed + i * 7) % Math.max(ingredients, 1)).append("\"");
+        }
+        String jsonLd = """
+                {"@context": "https://schema.org", "@type": "Recipe", "name": "Recipe %d", "recipeYield": "4",
+                 "recipeIngredient": [%s],
+                 "recipeInstructions": [{"@type": "HowToStep", "text": "Mix."}, {"@type": "HowToStep", "text": "Bake."}]}
+                """.formatted(seed, recipeIngredients);
+        return page("<script type=\"application/ld+json\">" + jsonLd + "</script>", seed);
+    }
+
+    private String plainPage(int seed) {
+        return page("", seed);
+    }
+
+    private static String page(String head, int seed) {
+        return "<!DOCTYPE html><html><head><title>Recipe " + seed + "</title>" + head + "</head><body><h1>Recipe "
+                + seed + "</h1>\n" + FILLER.repeat(60) + "<ul><li>200 g flour</li><li>2 eggs</li></ul></body></html>";
+    }
+}
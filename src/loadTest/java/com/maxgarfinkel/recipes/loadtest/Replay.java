@@ -0,0 +1,173 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maxgarfinkel.recipes.RecipesApplication;
+import com.maxgarfinkel.recipes.recipe.importing.AnthropicRateLimiter;
+import com.maxgarfinkel.recipes.recipe.importing.ImportAudit;
+import com.maxgarfinkel.recipes.recipe.importing.ImportAuditRepository;
+import com.maxgarfinkel.recipes.recipe.importing.LlmExtractor;
+import com.maxgarfinkel.recipes.recipe.importing.RecipeImportDraft;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Re-runs LLM extraction over recorded import audits and reports how the current prompt and
+ * parser do against what was recorded. By default the model is {@link ReplayStub}, which answers
+ * each prompt with its recorded response, so parser and pipeline changes can be measured with no
+ * API calls. A changed prompt produces prompts the stub has never seen; point
+ * {@code replay.model-url} at a local model to compare those.
+ *
+ * <p>Run with {@code ./gradlew replay}; settings are listed in {@link ReplayConfig}. The app
+ * boots against the database holding the audits, with auditing switched off so the run doesn't
+ * record itself.</p>
+ */
+public class Replay {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final int LISTED_CHANGES = 20;
+
+    private final ReplayConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+    private final LongAdder recordedParsed = new LongAdder();
+    private final LongAdder replayParsed = new LongAdder();
+    private final LongAdder ingredientLines = new LongAdder();
+    private final Queue<Long> regressions = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> fixes = new ConcurrentLinkedQueue<>();
+
+    Replay(ReplayConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Replay(ReplayConfig.fromSystemProperties()).run();
+    }
+
+    void run() throws Exception {
+        HttpServer stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        String stubUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+        ReplayStub model = new ReplayStub(objectMapper, config.modelLatency());
+        stubServer.createContext("/jwks", new StubIssuer(stubUrl + "/"));
+        stubServer.createContext("/v1/messages", model);
+        stubServer.start();
+
+        List<Long> ids;
+        long elapsedNanos;
+        try (ConfigurableApplicationContext app = startApp(stubUrl)) {
+            ImportAuditRepository audits = app.getBean(ImportAuditRepository.class);
+            LlmExtractor extractor = app.getBean(LlmExtractor.class);
+            PageRequest page = PageRequest.of(0, config.limit());
+            ids = config.promptVersion().isBlank()
+                    ? audits.findLatestIds(page)
+                    : audits.findLatestIdsByPromptVersion(config.promptVersion(), page);
+
+            long start = System.nanoTime();
+            Semaphore permits = new Semaphore(config.concurrency());
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Long id : ids) {
+                    permits.acquire();
+                    executor.submit(() -> {
+                        try {
+                            audits.findById(id).ifPresent(audit -> replay(audit, model, extractor));
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            stubServer.stop(0);
+        }
+
+        print(ids.size(), elapsedNanos, model);
+    }
+
+    private ConfigurableApplicationContext startApp(String stubUrl) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.security.oauth2.resourceserver.jwt.issuer-uri=" + stubUrl + "/",
+                "--spring.security.oauth2.resourceserver.jwt.jwk-set-uri=" + stubUrl + "/jwks",
+                "--spring.security.oauth2.resourceserver.jwt.audiences=" + StubIssuer.AUDIENCE,
+                "--anthropic.api-key=replay",
+                "--anthropic.base-url=" + (config.modelUrl().isBlank() ? stubUrl : config.modelUrl()),
+                // The run is bounded by replay.concurrency, not by the production API limits.
+                "--anthropic.rate-limit.requests-per-minute=1000000",
+                "--anthropic.rate-limit.burst=" + config.concurrency(),
+                "--import.resilience.bulkhead.anthropic-text=" + config.concurrency(),
+                // The audit database is only read: no migrations, no retention purge, and a
+                // read-only connection in case anything else tries to write.
+                "--import.audit.enabled=false",
+                "--import.audit.retention=P0D",
+                "--spring.flyway.enabled=false",
+                "--spring.datasource.hikari.read-only=true"));
+        if (!config.datasourceUrl().isBlank()) {
+            args.add("--spring.datasource.url=" + config.datasourceUrl());
+        }
+        if (!config.datasourceUsername().isBlank()) {
+            args.add("--spring.datasource.username=" + config.datasourceUsername());
+        }
+        if (!config.datasourcePassword().isBlank()) {
+            args.add("--spring.datasource.password=" + config.datasourcePassword());
+        }
+        return new SpringApplicationBuilder(RecipesApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private void replay(ImportAudit audit, ReplayStub model, LlmExtractor extractor) {
+        model.expect(audit.getRequestHash(), audit.getRawResponse());
+        long start = System.nanoTime();
+        Optional<RecipeImportDraft> draft = extractor.extract(audit.getHtml(), audit.getSourceUrl(),
+                AnthropicRateLimiter.Priority.BULK);
+        latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start), MAX_LATENCY_MICROS));
+
+        if (audit.isParsed()) recordedParsed.increment();
+        draft.ifPresent(d -> {
+            replayParsed.increment();
+            ingredientLines.add(d.getIngredientLines() == null ? 0 : d.getIngredientLines().size());
+        });
+        if (audit.isParsed() && draft.isEmpty()) regressions.add(audit.getId());
+        if (!audit.isParsed() && draft.isPresent()) fixes.add(audit.getId());
+    }
+
+    private void print(int audits, long elapsedNanos, ReplayStub model) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%nReplayed %d audits in %.1f s (%.1f/s)%n", audits, seconds, audits / seconds);
+        System.out.printf("Parsed: %d recorded, %d replayed; %.1f ingredient lines per replayed draft%n",
+                recordedParsed.sum(), replayParsed.sum(),
+                replayParsed.sum() == 0 ? 0.0 : (double) ingredientLines.sum() / replayParsed.sum());
+        System.out.printf("Extraction latency: p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)), millis(latencies.getMaxValue()));
+        if (config.modelUrl().isBlank()) {
+            System.out.printf("Prompts with no recorded response: %d%n", model.misses.sum());
+        }
+        System.out.printf("Regressions (parsed when recorded, not now): %d %s%n", regressions.size(), first(regressions));
+        System.out.printf("Fixes (not parsed when recorded, parsed now): %d %s%n", fixes.size(), first(fixes));
+    }
+
+    private static List<Long> first(Queue<Long> ids) {
+        return ids.stream().sorted().limit(LISTED_CHANGES).toList();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Replay settings, read from {@code replay.*} system properties. The Gradle {@code replay} task
+ * forwards these from {@code -Dreplay.x=y} on the command line.
+ *
+ * <p>{@code datasource.*} default to the application's own settings. {@code prompt-version}
+ * limits the run to audits recorded with that prompt; blank means all. {@code model-url} points
+ * extraction at another messages API, such as a local model, instead of the recording stub.</p>
+ */
+record ReplayConfig(String datasourceUrl,
+                    String datasourceUsername,
+                    String datasourcePassword,
+                    String promptVersion,
+                    int limit,
+                    int concurrency,
+                    String modelUrl,
+                    Duration modelLatency) {
+
+    static ReplayConfig fromSystemProperties() {
+        return new ReplayConfig(
+                property("datasource.url", ""),
+                property("datasource.username", ""),
+                property("datasource.password", ""),
+                property("prompt-version", ""),
+                Integer.parseInt(property("limit", "1000")),
+                Integer.parseInt(property("concurrency", "32")),
+                property("model-url", ""),
+                Duration.ofMillis(Long.parseLong(property("model.latency-ms", "0"))));
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("replay." + name, defaultValue);
+    }
+}
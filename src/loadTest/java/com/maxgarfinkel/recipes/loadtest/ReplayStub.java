@@ -0,0 +1,114 @@
+package com.maxgarfinkel.recipes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.maxgarfinkel.recipes.recipe.importing.ImportAuditService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers {@code POST /v1/messages} with the response recorded for the same user prompt, matched
+ * by {@link ImportAuditService#requestHash}. Requests that force a tool get the recording as the
+ * tool input when it is a JSON object; everything else gets it as text. A prompt with no
+ * recording is refused with a 400, which the client does not retry.
+ */
+class ReplayStub implements HttpHandler {
+
+    private final ObjectMapper objectMapper;
+    private final Duration latency;
+    private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+    final LongAdder misses = new LongAdder();
+
+    ReplayStub(ObjectMapper objectMapper, Duration latency) {
+        this.objectMapper = objectMapper;
+        this.latency = latency;
+    }
+
+    void expect(String requestHash, String response) {
+        responses.put(requestHash, response);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        if (!latency.isZero()) {
+            sleep(latency.toMillis());
+        }
+        String recorded = responses.get(ImportAuditService.requestHash(userPrompt(request)));
+        if (recorded == null) {
+            misses.increment();
+            respond(exchange, 400, "{\"type\":\"error\",\"error\":{\"type\":\"invalid_request_error\","
+                    + "\"message\":\"No recorded response for this prompt\"}}");
+            return;
+        }
+
+        String toolName = request.path("tool_choice").path("name").asText(null);
+        JsonNode toolInput = toolName == null ? null : toolInput(recorded);
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", "msg_replay")
+                .put("type", "message")
+                .put("role", "assistant")
+                .put("model", request.path("model").asText());
+        if (toolInput != null) {
+            response.put("stop_reason", "tool_use");
+            response.putArray("content").addObject()
+                    .put("type", "tool_use")
+                    .put("id", "toolu_replay")
+                    .put("name", toolName)
+                    .set("input", toolInput);
+        } else {
+            response.put("stop_reason", "end_turn");
+            response.putArray("content").addObject().put("type", "text").put("text", recorded);
+        }
+        response.putObject("usage").put("input_tokens", 0).put("output_tokens", 0);
+        respond(exchange, 200, objectMapper.writeValueAsString(response));
+    }
+
+    private static String userPrompt(JsonNode request) {
+        JsonNode content = request.path("messages").path(0).path("content");
+        if (content.isTextual()) {
+            return content.asText();
+        }
+        for (JsonNode block : content) {
+            if ("text".equals(block.path("type").asText())) {
+                return block.path("text").asText();
+            }
+        }
+        return "";
+    }
+
+    private JsonNode toolInput(String recorded) {
+        try {
+            JsonNode input = objectMapper.readTree(recorded);
+            return input != null && input.isObject() ? input : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.maxgarfinkel.recipes;
+
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counter for the reference data served to every page load (units and ingredients).
+ * Writes to the catalogue increment it. Services key their in-memory copies on it, and
+ * controllers derive strong ETags from it, so unchanged catalogues revalidate with a 304 and no
+ * database work. The start-up epoch stops ETags from an earlier process being mistaken for
+ * current ones after a restart.
+ */
+@Component
+public class CatalogueVersion {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong counter = new AtomicLong();
+
+    public long current() {
+        return counter.get();
+    }
+
+    public void increment() {
+        counter.incrementAndGet();
+    }
+
+    public String etag() {
+        return "\"" + epoch + "-" + counter.get() + "\"";
+    }
+
+    /** Responses are per-user (behind auth) and must be revalidated before reuse. */
+    public CacheControl cacheControl() {
+        return CACHE_CONTROL;
+    }
+}
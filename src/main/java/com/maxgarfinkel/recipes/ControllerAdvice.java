@@ -1,8 +1,16 @@
 package com.maxgarfinkel.recipes;
 
 import com.maxgarfinkel.recipes.ingredient.DuplicateIngredientException;
+import com.maxgarfinkel.recipes.ingredient.DuplicateIngredientsException;
+import com.maxgarfinkel.recipes.ingredient.InvalidIngredientAliasException;
+import com.maxgarfinkel.recipes.ingredient.InvalidIngredientsException;
+import com.maxgarfinkel.recipes.recipe.InvalidRecipePatchException;
+import com.maxgarfinkel.recipes.recipe.RecipeVersionMismatchException;
+import com.maxgarfinkel.recipes.recipe.importing.ImagePagesUnavailableException;
 import com.maxgarfinkel.recipes.recipe.importing.RecipeImportException;
+import jakarta.persistence.OptimisticLockException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -23,6 +31,14 @@ public class ControllerAdvice extends ResponseEntityExceptionHandler {
         return detail;
     }
 
+    @ExceptionHandler(ImagePagesUnavailableException.class)
+    ProblemDetail handleImagePagesUnavailable(ImagePagesUnavailableException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        detail.setDetail(exception.getMessage());
+        detail.setProperty("failedPages", exception.getFailedPages());
+        return detail;
+    }
+
     @ExceptionHandler(DuplicateIngredientException.class)
     ProblemDetail handleDuplicateIngredient(DuplicateIngredientException exception) {
         ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
@@ -30,6 +46,50 @@ public class ControllerAdvice extends ResponseEntityExceptionHandler {
         return detail;
     }
 
+    @ExceptionHandler(DuplicateIngredientsException.class)
+    ProblemDetail handleDuplicateIngredients(DuplicateIngredientsException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        detail.setDetail(exception.getMessage());
+        detail.setProperty("duplicates", exception.getIngredientNames());
+        return detail;
+    }
+
+    @ExceptionHandler(InvalidIngredientsException.class)
+    ProblemDetail handleInvalidIngredients(InvalidIngredientsException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        detail.setDetail(exception.getMessage());
+        detail.setProperty("invalid", exception.getPositions());
+        return detail;
+    }
+
+    @ExceptionHandler(InvalidIngredientAliasException.class)
+    ProblemDetail handleInvalidIngredientAlias(InvalidIngredientAliasException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        detail.setDetail(exception.getMessage());
+        return detail;
+    }
+
+    @ExceptionHandler(InvalidRecipePatchException.class)
+    ProblemDetail handleInvalidRecipePatch(InvalidRecipePatchException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        detail.setDetail(exception.getMessage());
+        return detail;
+    }
+
+    @ExceptionHandler(RecipeVersionMismatchException.class)
+    ProblemDetail handleRecipeVersionMismatch(RecipeVersionMismatchException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.PRECONDITION_FAILED);
+        detail.setDetail(exception.getMessage());
+        return detail;
+    }
+
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    ProblemDetail handleOptimisticLockingFailure(RuntimeException exception) {
+        ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        detail.setDetail("The resource was modified concurrently; reload it and try again");
+        return detail;
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     ProblemDetail handleDataIntegrityViolation(DataIntegrityViolationException exception) {
         ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.CONFLICT);
@@ -0,0 +1,53 @@
+package com.maxgarfinkel.recipes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.security.oauth2.resource.servlet.JwkSetUriJwtDecoderBuilderCustomizer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps the issuer's JWK set in memory and refreshes it in the background. The decoder only
+ * fetches on a cache miss or when it sees an unknown key id, so normal requests never call the
+ * issuer. If a refresh fails, the last good key set is kept.
+ */
+@Configuration
+@EnableScheduling
+@Slf4j
+public class JwkSetCacheConfig {
+
+    private final Cache jwkSetCache = new ConcurrentMapCache("jwk-set");
+    private final RestClient restClient = RestClient.create();
+
+    @Bean
+    JwkSetUriJwtDecoderBuilderCustomizer jwkSetCacheCustomizer() {
+        return builder -> builder.cache(jwkSetCache);
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwks.refresh-interval:PT10M}",
+            initialDelayString = "${security.jwks.refresh-interval:PT10M}")
+    void refreshJwkSets() {
+        @SuppressWarnings("unchecked")
+        var entries = (ConcurrentMap<Object, Object>) jwkSetCache.getNativeCache();
+        for (Object jwkSetUri : List.copyOf(entries.keySet())) {
+            try {
+                String jwkSet = restClient.get()
+                        .uri(jwkSetUri.toString())
+                        .retrieve()
+                        .body(String.class);
+                if (jwkSet != null) {
+                    jwkSetCache.put(jwkSetUri, jwkSet);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to refresh JWK set from {}, keeping cached keys: {}", jwkSetUri, e.getMessage());
+            }
+        }
+    }
+}
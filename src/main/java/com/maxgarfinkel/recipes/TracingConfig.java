@@ -0,0 +1,29 @@
+package com.maxgarfinkel.recipes;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * HTTP server and RestClient spans come from Spring Boot's auto-configuration, and JDBC spans come
+ * from datasource-micrometer. This adds spans for {@code @Observed} service classes and, when
+ * {@code tracing.log-spans} is set, writes finished spans to the log for use without a collector.
+ * Spans are exported over OTLP when {@code management.otlp.tracing.endpoint} is configured.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty("tracing.log-spans")
+    LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -29,7 +29,7 @@ public class UserSyncFilter extends OncePerRequestFilter {
             String sub = jwt.getSubject();
             String displayName = jwt.getClaimAsString("name");
             if (displayName == null) displayName = sub;
-            appUserService.findOrCreate(sub, displayName);
+            appUserService.ensureExists(sub, displayName);
         }
         filterChain.doFilter(request, response);
     }
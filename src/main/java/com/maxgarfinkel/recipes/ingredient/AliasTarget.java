@@ -0,0 +1,8 @@
+package com.maxgarfinkel.recipes.ingredient;
+
+/**
+ * What an alias resolves to, as held by the in-memory alias index. {@code confirmedCount} is how
+ * many confirmed imports currently agree with the mapping.
+ */
+public record AliasTarget(long ingredientId, long unitId, int confirmedCount) {
+}
@@ -0,0 +1,17 @@
+package com.maxgarfinkel.recipes.ingredient;
+
+import java.util.List;
+
+public class DuplicateIngredientsException extends RuntimeException {
+
+    private final List<String> ingredientNames;
+
+    public DuplicateIngredientsException(List<String> ingredientNames) {
+        super("Ingredients with these names already exist: " + String.join(", ", ingredientNames));
+        this.ingredientNames = ingredientNames;
+    }
+
+    public List<String> getIngredientNames() {
+        return ingredientNames;
+    }
+}
@@ -31,6 +31,11 @@ public class IngredientAlias {
     @Setter
     private Unit unit;
 
+    @Column(name = "confirmed_count", nullable = false)
+    @Getter
+    @Setter
+    private int confirmedCount = 1;
+
     public IngredientAliasResponseDto toDto() {
         return new IngredientAliasResponseDto(id, aliasText, ingredient.getId(), unit.getId());
     }
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/ingredient-alias")
@@ -17,6 +19,12 @@ public class IngredientAliasController {
         ingredientAliasService.save(dto.getAliasText(), dto.getIngredientId(), dto.getUnitId());
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    void saveAll(@RequestBody List<IngredientAliasDto> dtos) {
+        ingredientAliasService.saveAll(dtos);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     void delete(@PathVariable Long id) {
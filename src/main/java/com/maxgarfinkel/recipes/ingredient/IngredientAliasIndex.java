@@ -0,0 +1,61 @@
+package com.maxgarfinkel.recipes.ingredient;
+
+import com.maxgarfinkel.recipes.CatalogueVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every alias, keyed by normalised alias text, so import resolution is a map lookup instead of
+ * a table scan per import. Loaded on first use and again whenever the catalogue version moves
+ * on; alias writes between catalogue changes are applied to the loaded copy in place.
+ */
+@Component
+@RequiredArgsConstructor
+class IngredientAliasIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogueVersion catalogueVersion;
+
+    private volatile Snapshot snapshot;
+
+    Optional<AliasTarget> find(String normalisedText) {
+        return Optional.ofNullable(current().get(normalisedText));
+    }
+
+    /**
+     * Applies alias writes that have already been committed. A reload racing with the write may
+     * have read the table just before it; the alias is then missing until the next catalogue
+     * change, which only costs a fallback to the other resolution strategies.
+     */
+    void putAll(Map<String, AliasTarget> aliases) {
+        current().putAll(aliases);
+    }
+
+    void remove(String normalisedText) {
+        current().remove(normalisedText);
+    }
+
+    private Map<String, AliasTarget> current() {
+        long version = catalogueVersion.current();
+        Snapshot cached = snapshot;
+        if (cached != null && cached.version() == version) {
+            return cached.aliases();
+        }
+        Map<String, AliasTarget> aliases = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT alias_text, ingredient_id, unit_id, confirmed_count FROM ingredient_alias",
+                rs -> {
+                    aliases.put(rs.getString("alias_text"), new AliasTarget(rs.getLong("ingredient_id"),
+                            rs.getLong("unit_id"), rs.getInt("confirmed_count")));
+                });
+        snapshot = new Snapshot(version, aliases);
+        return aliases;
+    }
+
+    private record Snapshot(long version, Map<String, AliasTarget> aliases) {
+    }
+}
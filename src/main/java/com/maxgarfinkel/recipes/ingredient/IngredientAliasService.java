@@ -1,45 +1,143 @@
 package com.maxgarfinkel.recipes.ingredient;
 
 import com.maxgarfinkel.recipes.ItemNotFound;
-import com.maxgarfinkel.recipes.unit.UnitService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class IngredientAliasService {
 
+    /**
+     * Upserts every mapping in one statement, so concurrent saves of the same text meet at the
+     * unique constraint instead of racing a read. The latest mapping wins; repeating the stored
+     * ingredient raises its count, whatever the unit. Unknown ingredient or unit ids fail the foreign keys.
+     */
+    private static final String SAVE_SQL = """
+            INSERT INTO ingredient_alias (alias_text, ingredient_id, unit_id)
+            SELECT * FROM unnest(?::varchar[], ?::bigint[], ?::bigint[])
+            ON CONFLICT (alias_text) DO UPDATE SET
+                confirmed_count = CASE
+                    WHEN ingredient_alias.ingredient_id = EXCLUDED.ingredient_id
+                        THEN ingredient_alias.confirmed_count + 1
+                    ELSE 1
+                END,
+                ingredient_id = EXCLUDED.ingredient_id,
+                unit_id = EXCLUDED.unit_id
+            RETURNING alias_text, ingredient_id, unit_id, confirmed_count
+            """;
+
+    /**
+     * Upserts every confirmation in one statement. Each confirmation is a vote on the ingredient:
+     * agreeing with the stored one raises its count, disagreeing lowers it, and the mapping only
+     * switches once its count is down to one. The unit doesn't vote, since the same ingredient is
+     * written in grams on one site and cups on the next; an agreeing vote just brings it up to
+     * date. Postgres evaluates every SET expression against the old row, so the CASEs see the
+     * count before this vote.
+     */
+    private static final String CONFIRM_SQL = """
+            INSERT INTO ingredient_alias (alias_text, ingredient_id, unit_id)
+            SELECT * FROM unnest(?::varchar[], ?::bigint[], ?::bigint[])
+            ON CONFLICT (alias_text) DO UPDATE SET
+                confirmed_count = CASE
+                    WHEN ingredient_alias.ingredient_id = EXCLUDED.ingredient_id
+                        THEN ingredient_alias.confirmed_count + 1
+                    WHEN ingredient_alias.confirmed_count <= 1 THEN 1
+                    ELSE ingredient_alias.confirmed_count - 1
+                END,
+                ingredient_id = CASE WHEN ingredient_alias.confirmed_count <= 1
+                    THEN EXCLUDED.ingredient_id ELSE ingredient_alias.ingredient_id END,
+                unit_id = CASE
+                    WHEN ingredient_alias.ingredient_id = EXCLUDED.ingredient_id
+                         OR ingredient_alias.confirmed_count <= 1
+                        THEN EXCLUDED.unit_id
+                    ELSE ingredient_alias.unit_id
+                END
+            RETURNING alias_text, ingredient_id, unit_id, confirmed_count
+            """;
+
     private final IngredientAliasRepository repository;
     private final IngredientRepository ingredientRepository;
-    private final UnitService unitService;
+    private final IngredientAliasIndex index;
+    private final JdbcTemplate jdbcTemplate;
 
     /**
      * Save or update an alias mapping. If the normalised alias text already exists the
      * existing record is updated with the new ingredient and unit (the user's most recent
-     * resolution wins).
+     * resolution wins). Unlike the batch and confirm paths, which skip incomplete entries, a
+     * blank text or a missing id is rejected.
      */
     public void save(String rawAliasText, Long ingredientId, Long unitId) {
-        String normalised = normalise(rawAliasText);
-        repository.findByAliasText(normalised).ifPresentOrElse(
-            existing -> {
-                existing.setIngredient(ingredientRepository.getReferenceById(ingredientId));
-                existing.setUnit(unitService.getEntityById(unitId));
-                repository.save(existing);
-            },
-            () -> {
-                IngredientAlias alias = new IngredientAlias();
-                alias.setAliasText(normalised);
-                alias.setIngredient(ingredientRepository.getReferenceById(ingredientId));
-                alias.setUnit(unitService.getEntityById(unitId));
-                repository.save(alias);
+        if (!isComplete(normalise(rawAliasText), ingredientId, unitId)) {
+            throw new InvalidIngredientAliasException("An alias needs text, an ingredient id and a unit id");
+        }
+        saveAll(List.of(new IngredientAliasDto(rawAliasText, ingredientId, unitId)));
+    }
+
+    /**
+     * Saves many alias mappings in one round trip, each as {@link #save} would. Entries without
+     * text or ids are ignored, and repeated texts count once, with the last one winning.
+     */
+    public void saveAll(List<IngredientAliasDto> aliases) {
+        upsert(SAVE_SQL, aliases);
+    }
+
+    /**
+     * Records the ingredient and unit each line of a confirmed import ended up with, keyed by the
+     * line's ingredient name hint. Unlike {@link #save}, a confirmation that disagrees with an
+     * established alias only weakens it; see {@link #CONFIRM_SQL}. Entries without text or ids
+     * are ignored, and repeated hints count once, with the last one winning.
+     */
+    public void confirm(List<IngredientAliasDto> confirmations) {
+        upsert(CONFIRM_SQL, confirmations);
+    }
+
+    private void upsert(String sql, List<IngredientAliasDto> aliases) {
+        // One statement can't touch the same row twice, so duplicates collapse before the insert.
+        Map<String, IngredientAliasDto> byText = new LinkedHashMap<>();
+        for (IngredientAliasDto alias : aliases) {
+            if (alias == null) continue;
+            String normalised = normalise(alias.getAliasText());
+            if (isComplete(normalised, alias.getIngredientId(), alias.getUnitId())) {
+                byText.put(normalised, alias);
             }
-        );
+        }
+        if (byText.isEmpty()) {
+            return;
+        }
+
+        String[] texts = byText.keySet().toArray(String[]::new);
+        Long[] ingredientIds = byText.values().stream().map(IngredientAliasDto::getIngredientId).toArray(Long[]::new);
+        Long[] unitIds = byText.values().stream().map(IngredientAliasDto::getUnitId).toArray(Long[]::new);
+        Map<String, AliasTarget> upserted = new LinkedHashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("varchar", texts));
+            ps.setArray(2, con.createArrayOf("bigint", ingredientIds));
+            ps.setArray(3, con.createArrayOf("bigint", unitIds));
+            return ps;
+        }, rs -> {
+            upserted.put(rs.getString("alias_text"), new AliasTarget(rs.getLong("ingredient_id"),
+                    rs.getLong("unit_id"), rs.getInt("confirmed_count")));
+        });
+        index.putAll(upserted);
+    }
+
+    private static boolean isComplete(String normalisedText, Long ingredientId, Long unitId) {
+        return normalisedText != null && !normalisedText.isEmpty() && ingredientId != null && unitId != null;
     }
 
-    public List<IngredientAlias> findAll() {
-        return repository.findAll();
+    /** Looks the hint up in the alias index; no database access once the index is loaded. */
+    public Optional<AliasTarget> findTarget(String hint) {
+        String normalised = normalise(hint);
+        return normalised == null ? Optional.empty() : index.find(normalised);
     }
 
     public List<IngredientAliasResponseDto> findByIngredientId(Long ingredientId) {
@@ -52,10 +150,11 @@ public class IngredientAliasService {
     }
 
     public void delete(Long id) {
-        if (!repository.existsById(id))
-            throw new ItemNotFound(id, "IngredientAlias",
-                    "Unable to find ingredient alias with id " + id);
+        IngredientAlias alias = repository.findById(id)
+                .orElseThrow(() -> new ItemNotFound(id, "IngredientAlias",
+                        "Unable to find ingredient alias with id " + id));
         repository.deleteById(id);
+        index.remove(alias.getAliasText());
     }
 
     public static String normalise(String text) {
@@ -1,8 +1,11 @@
 package com.maxgarfinkel.recipes.ingredient;
 
+import com.maxgarfinkel.recipes.CatalogueVersion;
 import com.maxgarfinkel.recipes.PageResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -13,10 +16,18 @@ public class IngredientController {
 
     private final IngredientService ingredientService;
     private final IngredientAliasService ingredientAliasService;
+    private final CatalogueVersion catalogueVersion;
 
     @GetMapping("/")
-    List<IngredientDto> all() {
-        return ingredientService.getAllAsDto();
+    ResponseEntity<List<IngredientDto>> all(WebRequest request) {
+        String etag = catalogueVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(catalogueVersion.cacheControl())
+                .body(ingredientService.getAllAsDto());
     }
 
     @GetMapping("/page")
@@ -31,6 +42,11 @@ public class IngredientController {
                 ingredientDto.getUnitId());
     }
 
+    @PostMapping("/batch")
+    List<IngredientDto> saveAll(@RequestBody List<IngredientDto> ingredientDtos) {
+        return ingredientService.saveAll(ingredientDtos);
+    }
+
     @PutMapping("/{id}")
     IngredientDto update(@PathVariable Long id, @RequestBody IngredientDto ingredientDto) {
         return ingredientService.update(id, ingredientDto.getName(), ingredientDto.getUnitId());
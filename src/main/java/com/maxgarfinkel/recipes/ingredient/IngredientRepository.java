@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
@@ -13,4 +15,7 @@ public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
 
     @Query("SELECT i FROM Ingredient i WHERE lower(trim(i.name)) = :normalisedName")
     Optional<Ingredient> findByNormalisedName(@Param("normalisedName") String normalisedName);
+
+    @Query("SELECT i FROM Ingredient i WHERE lower(trim(i.name)) IN :normalisedNames")
+    List<Ingredient> findAllByNormalisedNameIn(@Param("normalisedNames") Collection<String> normalisedNames);
 }
@@ -1,26 +1,57 @@
 package com.maxgarfinkel.recipes.ingredient;
 
+import com.maxgarfinkel.recipes.CatalogueVersion;
 import com.maxgarfinkel.recipes.ItemNotFound;
 import com.maxgarfinkel.recipes.PageResponse;
+import com.maxgarfinkel.recipes.unit.Unit;
 import com.maxgarfinkel.recipes.unit.UnitService;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
+@Observed(name = "ingredient.service")
 @RequiredArgsConstructor
 public class IngredientService {
 
     private final IngredientRepository ingredientRepository;
     private final UnitService unitService;
+    private final CatalogueVersion catalogueVersion;
+    private final TransactionTemplate transactionTemplate;
 
+    private volatile CachedIngredients cachedIngredients;
+
+    /**
+     * Returns every ingredient, served from memory until the catalogue version moves on. The
+     * version is read before loading, so a write racing with the load just causes a reload on
+     * the next call.
+     */
     public List<IngredientDto> getAllAsDto() {
-        return ingredientRepository.findAll()
+        long version = catalogueVersion.current();
+        CachedIngredients cached = cachedIngredients;
+        if (cached != null && cached.version() == version) {
+            return cached.ingredients();
+        }
+        List<IngredientDto> ingredients = ingredientRepository.findAll()
                 .stream()
                 .map(Ingredient::toDto)
                 .toList();
+        cachedIngredients = new CachedIngredients(version, ingredients);
+        return ingredients;
     }
 
     public PageResponse<IngredientDto> getPageAsDto(int page, int size) {
@@ -41,7 +72,9 @@ public class IngredientService {
         if(unitId != null) {
             ingredient.setDefaultUnit(unitService.getEntityById(unitId));
         }
-        return ingredientRepository.save(ingredient).toDto();
+        IngredientDto created = ingredientRepository.save(ingredient).toDto();
+        catalogueVersion.increment();
+        return created;
     }
 
     public IngredientDto update(Long id, String name, Long unitId) {
@@ -52,7 +85,7 @@ public class IngredientService {
                 .ifPresent(existing -> {
                     throw new DuplicateIngredientException(trimmed);
                 });
-        return ingredientRepository.findById(id)
+        IngredientDto updated = ingredientRepository.findById(id)
                 .map(i -> {
                     i.setName(trimmed);
                     i.setDefaultUnit(unitId != null ? unitService.getEntityById(unitId) : null);
@@ -60,13 +93,112 @@ public class IngredientService {
                 })
                 .orElseThrow(() -> new ItemNotFound(id, "Ingredient",
                         "Unable to update ingredient with id " + id));
+        catalogueVersion.increment();
+        return updated;
+    }
+
+    /**
+     * Creates (no id) or updates (with id) many ingredients at once. Every name is checked for
+     * duplicates, within the request and against the catalogue, by one query on the
+     * {@code lower(trim(name))} index, and all clashes are reported together before anything is
+     * written. Entries without a name are rejected, all together, before any query runs. Units
+     * and updated ingredients are each loaded with one {@code findAllById}, and
+     * the inserts are grouped into JDBC batches. The catalogue version moves on after the commit,
+     * so a concurrent reload can't cache the list as it was before the write.
+     */
+    public List<IngredientDto> saveAll(List<IngredientDto> ingredientDtos) {
+        List<Integer> unnamed = IntStream.range(0, ingredientDtos.size())
+                .filter(i -> ingredientDtos.get(i) == null || !StringUtils.hasText(ingredientDtos.get(i).getName()))
+                .boxed()
+                .toList();
+        if (!unnamed.isEmpty()) {
+            throw new InvalidIngredientsException(unnamed);
+        }
+        List<IngredientDto> saved = transactionTemplate.execute(status -> {
+            List<String> names = ingredientDtos.stream().map(dto -> dto.getName().trim()).toList();
+            checkForDuplicates(ingredientDtos, names);
+
+            Map<Long, Unit> units = findUnits(ingredientDtos);
+            Map<Long, Ingredient> existing = findExisting(ingredientDtos);
+            List<Ingredient> ingredients = new ArrayList<>(ingredientDtos.size());
+            for (int i = 0; i < ingredientDtos.size(); i++) {
+                IngredientDto dto = ingredientDtos.get(i);
+                Ingredient ingredient = dto.getId() == null ? new Ingredient() : existing.get(dto.getId());
+                ingredient.setName(names.get(i));
+                ingredient.setDefaultUnit(dto.getUnitId() != null ? units.get(dto.getUnitId()) : null);
+                ingredients.add(ingredient);
+            }
+            return ingredientRepository.saveAll(ingredients).stream()
+                    .map(Ingredient::toDto)
+                    .toList();
+        });
+        catalogueVersion.increment();
+        return saved;
     }
 
     public void delete(Long id) {
         ingredientRepository.deleteById(id);
+        catalogueVersion.increment();
     }
 
     public List<Ingredient> findAllById(List<Long> ingredientIds) {
         return ingredientRepository.findAllById(ingredientIds);
     }
+
+    private void checkForDuplicates(List<IngredientDto> ingredientDtos, List<String> names) {
+        List<String> normalised = names.stream().map(String::toLowerCase).toList();
+        Set<String> clashes = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        for (String name : normalised) {
+            if (!seen.add(name)) clashes.add(name);
+        }
+        Map<String, Long> existingIds = ingredientRepository.findAllByNormalisedNameIn(seen).stream()
+                .collect(Collectors.toMap(i -> i.toDto().getName().trim().toLowerCase(), Ingredient::getId));
+        for (int i = 0; i < ingredientDtos.size(); i++) {
+            Long existingId = existingIds.get(normalised.get(i));
+            if (existingId != null && !existingId.equals(ingredientDtos.get(i).getId())) {
+                clashes.add(normalised.get(i));
+            }
+        }
+        if (clashes.isEmpty()) return;
+
+        Set<String> duplicates = new LinkedHashSet<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (clashes.contains(normalised.get(i))) duplicates.add(names.get(i));
+        }
+        throw new DuplicateIngredientsException(List.copyOf(duplicates));
+    }
+
+    private Map<Long, Unit> findUnits(List<IngredientDto> ingredientDtos) {
+        List<Long> unitIds = ingredientDtos.stream()
+                .map(IngredientDto::getUnitId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (unitIds.isEmpty()) return Map.of();
+        Map<Long, Unit> units = unitService.findAllById(unitIds).stream()
+                .collect(Collectors.toMap(Unit::getId, Function.identity()));
+        unitIds.stream().filter(id -> !units.containsKey(id)).findFirst().ifPresent(id -> {
+            throw new ItemNotFound(id, "unit", "Unable to find unit with id: " + id);
+        });
+        return units;
+    }
+
+    private Map<Long, Ingredient> findExisting(List<IngredientDto> ingredientDtos) {
+        List<Long> ids = ingredientDtos.stream()
+                .map(IngredientDto::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) return Map.of();
+        Map<Long, Ingredient> existing = ingredientRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+        ids.stream().filter(id -> !existing.containsKey(id)).findFirst().ifPresent(id -> {
+            throw new ItemNotFound(id, "Ingredient", "Unable to update ingredient with id " + id);
+        });
+        return existing;
+    }
+
+    private record CachedIngredients(long version, List<IngredientDto> ingredients) {
+    }
 }
@@ -0,0 +1,8 @@
+package com.maxgarfinkel.recipes.ingredient;
+
+public class InvalidIngredientAliasException extends RuntimeException {
+
+    public InvalidIngredientAliasException(String message) {
+        super(message);
+    }
+}
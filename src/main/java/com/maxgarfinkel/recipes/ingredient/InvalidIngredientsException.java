@@ -0,0 +1,19 @@
+package com.maxgarfinkel.recipes.ingredient;
+
+import java.util.List;
+
+public class InvalidIngredientsException extends RuntimeException {
+
+    private final List<Integer> positions;
+
+    public InvalidIngredientsException(List<Integer> positions) {
+        super("Ingredients at these positions have no name: "
+                + String.join(", ", positions.stream().map(String::valueOf).toList()));
+        this.positions = positions;
+    }
+
+    /** Zero-based positions in the request. */
+    public List<Integer> getPositions() {
+        return positions;
+    }
+}
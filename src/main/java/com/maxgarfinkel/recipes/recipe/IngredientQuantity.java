@@ -3,12 +3,14 @@ package com.maxgarfinkel.recipes.recipe;
 import com.maxgarfinkel.recipes.ingredient.Ingredient;
 import com.maxgarfinkel.recipes.unit.Unit;
 import jakarta.persistence.*;
+import lombok.Getter;
 
 @Entity
 public class IngredientQuantity {
 
     @Id
     @GeneratedValue
+    @Getter
     private Long id;
 
     @ManyToOne()
@@ -36,6 +38,15 @@ public class IngredientQuantity {
 
     }
 
+    /** @return whether anything actually changed */
+    boolean update(Ingredient ingredient, Unit unit, double quantity) {
+        boolean changed = this.ingredient != ingredient || this.unit != unit || this.quantity != quantity;
+        this.ingredient = ingredient;
+        this.unit = unit;
+        this.quantity = quantity;
+        return changed;
+    }
+
     public IngredientQuantityDto toDto() {
         return new IngredientQuantityDto(id, quantity, ingredient.toDto(), unit != null ? unit.toDto() : null);
     }
@@ -0,0 +1,8 @@
+package com.maxgarfinkel.recipes.recipe;
+
+public class InvalidRecipePatchException extends RuntimeException {
+
+    public InvalidRecipePatchException(String message) {
+        super(message);
+    }
+}
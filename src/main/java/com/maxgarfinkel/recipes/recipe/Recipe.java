@@ -3,19 +3,25 @@ package com.maxgarfinkel.recipes.recipe;
 import com.maxgarfinkel.recipes.ingredient.Ingredient;
 import com.maxgarfinkel.recipes.unit.Unit;
 import jakarta.persistence.*;
+import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Entity
+@DynamicUpdate
 public class Recipe {
 
     @Id
     @GeneratedValue
+    @Getter
     private Long id;
 
     @Setter
@@ -29,44 +35,82 @@ public class Recipe {
     @Setter
     private String method;
 
+    @Setter
     private Integer servings;
 
     @Setter
     @Column(name = "source_url", length = 2048)
     private String sourceUrl;
 
+    @Version
+    @Getter
+    private Long version;
+
     public Recipe() {}
 
-    Recipe(RecipeDto recipeDto, List<Ingredient> ingredients, Map<Long, Unit> unitMap) {
+    Recipe(RecipeDto recipeDto, Map<Long, Ingredient> ingredientMap, Map<Long, Unit> unitMap) {
         this.name = recipeDto.getName();
         this.method = recipeDto.getMethod();
         this.servings = recipeDto.getServings();
         this.sourceUrl = recipeDto.getSourceUrl();
-        setAllIngredientQuantities(recipeDto, ingredients, unitMap);
+        setAllIngredientQuantities(recipeDto, ingredientMap, unitMap);
     }
 
-    public void update(RecipeDto recipeDto, List<Ingredient> ingredients, Map<Long, Unit> unitMap) {
+    /**
+     * Applies the dto; a {@code null} source url leaves the stored one alone. Hibernate bumps
+     * the version itself when a column changes or rows are added or removed, but not when
+     * existing quantity rows are only edited in place.
+     *
+     * @return whether the only changes were to existing quantity rows, so the caller has to
+     *         force the version increment
+     */
+    public boolean update(RecipeDto recipeDto, Map<Long, Ingredient> ingredientMap, Map<Long, Unit> unitMap) {
+        String newSourceUrl = recipeDto.getSourceUrl() != null ? recipeDto.getSourceUrl() : sourceUrl;
+        boolean fieldsChanged = !Objects.equals(name, recipeDto.getName())
+                || !Objects.equals(method, recipeDto.getMethod())
+                || !Objects.equals(servings, recipeDto.getServings())
+                || !Objects.equals(sourceUrl, newSourceUrl);
         this.name = recipeDto.getName();
         this.method = recipeDto.getMethod();
         this.servings = recipeDto.getServings();
-        setAllIngredientQuantities(recipeDto, ingredients, unitMap);
+        this.sourceUrl = newSourceUrl;
+        QuantityChanges changes = setAllIngredientQuantities(recipeDto, ingredientMap, unitMap);
+        return !fieldsChanged && changes == QuantityChanges.EDITED_IN_PLACE;
     }
 
-    private void setAllIngredientQuantities(RecipeDto recipeDto, List<Ingredient> ingredients, Map<Long, Unit> unitMap) {
-        if(ingredientQuantities != null) {
-            this.ingredientQuantities.clear();
+    /**
+     * Reconciles the quantity rows with the incoming list by id: rows whose id is still present
+     * are updated in place (and only flushed if actually dirty), dtos without a known id become
+     * new rows, and rows no longer referenced are removed as orphans.
+     */
+    private QuantityChanges setAllIngredientQuantities(RecipeDto recipeDto, Map<Long, Ingredient> ingredientMap, Map<Long, Unit> unitMap) {
+        if(ingredientQuantities == null) {
+            ingredientQuantities = new ArrayList<>();
+        }
+        Map<Long, IngredientQuantity> unmatched = ingredientQuantities.stream()
+                .filter(iq -> iq.getId() != null)
+                .collect(Collectors.toMap(IngredientQuantity::getId, Function.identity()));
+        List<IngredientQuantity> added = new ArrayList<>();
+        boolean edited = false;
+
+        for (IngredientQuantityDto iqDto : recipeDto.getIngredientQuantities()) {
+            var ingredient = ingredientMap.get(iqDto.getIngredient().getId());
+            Unit unit = iqDto.getUnit() != null
+                    ? unitMap.get(iqDto.getUnit().getId())
+                    : ingredient.getDefaultUnit();
+            IngredientQuantity existing = iqDto.getId() != null ? unmatched.remove(iqDto.getId()) : null;
+            if (existing != null) {
+                edited |= existing.update(ingredient, unit, iqDto.getQuantity());
+            } else {
+                added.add(new IngredientQuantity(this, ingredient, unit, iqDto.getQuantity()));
+            }
         }
-        Map<Long, Ingredient> ingredientMap = ingredients.stream()
-                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
-
-        recipeDto.getIngredientQuantities()
-                .forEach(iqDto -> {
-                    var ingredient = ingredientMap.get(iqDto.getIngredient().getId());
-                    Unit unit = iqDto.getUnit() != null
-                            ? unitMap.get(iqDto.getUnit().getId())
-                            : ingredient.getDefaultUnit();
-                    this.setIngredientQuantity(ingredient, unit, iqDto.getQuantity());
-                });
+
+        boolean membershipChanged = !unmatched.isEmpty() || !added.isEmpty();
+        ingredientQuantities.removeAll(unmatched.values());
+        ingredientQuantities.addAll(added);
+        if (membershipChanged) return QuantityChanges.ROWS_ADDED_OR_REMOVED;
+        return edited ? QuantityChanges.EDITED_IN_PLACE : QuantityChanges.NONE;
     }
 
     void setIngredientQuantity(Ingredient ingredient, Unit unit, Double quantity) {
@@ -77,9 +121,22 @@ public class Recipe {
         ingredientQuantities.add(new IngredientQuantity(this, ingredient, unit, quantity));
     }
 
+    Optional<IngredientQuantity> findIngredientQuantity(Long quantityId) {
+        if (ingredientQuantities == null) return Optional.empty();
+        return ingredientQuantities.stream()
+                .filter(iq -> quantityId.equals(iq.getId()))
+                .findFirst();
+    }
+
+    void removeIngredientQuantity(IngredientQuantity ingredientQuantity) {
+        ingredientQuantities.remove(ingredientQuantity);
+    }
+
     public RecipeDto toDto() {
         List<IngredientQuantityDto> quantityDtos = ingredientQuantities.stream()
                 .map(IngredientQuantity::toDto).toList();
         return new RecipeDto(id, name, method, servings, quantityDtos, sourceUrl);
     }
+
+    private enum QuantityChanges { NONE, EDITED_IN_PLACE, ROWS_ADDED_OR_REMOVED }
 }
@@ -1,7 +1,11 @@
 package com.maxgarfinkel.recipes.recipe;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,22 +22,66 @@ public class RecipeController {
     }
 
     @GetMapping("/{id}")
-    public RecipeDto getAllRecipe(@PathVariable Long id) {
-        return recipeService.getRecipe(id);
+    public ResponseEntity<RecipeDto> getAllRecipe(@PathVariable Long id, WebRequest request) {
+        // Only the version is read to answer a conditional GET; the body is loaded on a miss.
+        if (request.checkNotModified(RecipeETags.of(recipeService.getVersion(id)))) {
+            return null;
+        }
+        return withETag(recipeService.getRecipe(id));
     }
 
     @PostMapping("/")
-    public RecipeDto createRecipe(@RequestBody RecipeDto recipeDto) {
-        return recipeService.createRecipe(recipeDto);
+    public ResponseEntity<RecipeDto> createRecipe(@RequestBody RecipeDto recipeDto) {
+        return withETag(recipeService.createRecipe(recipeDto));
+    }
+
+    @PostMapping("/batch")
+    public List<RecipeDto> saveRecipes(@RequestBody List<RecipeDto> recipeDtos) {
+        return recipeService.saveRecipes(recipeDtos);
     }
 
     @PutMapping("/{id}")
-    public RecipeDto updateRecipe(@PathVariable Long id, @RequestBody RecipeDto recipeDto) {
-        return recipeService.updateRecipe(id, recipeDto);
+    public ResponseEntity<RecipeDto> updateRecipe(@PathVariable Long id, @RequestBody RecipeDto recipeDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(recipeService.updateRecipe(id, recipeDto, RecipeETags.parseIfMatch(ifMatch)));
+    }
+
+    @PatchMapping(path = "/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<RecipeDto> patchRecipe(@PathVariable Long id, @RequestBody JsonNode patch,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(recipeService.patchRecipe(id, patch, RecipeETags.parseIfMatch(ifMatch)));
+    }
+
+    @PostMapping("/{id}/ingredient-quantity")
+    public ResponseEntity<RecipeDto> addIngredientQuantity(@PathVariable Long id,
+                                                           @RequestBody IngredientQuantityDto quantityDto,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(recipeService.addIngredientQuantity(id, quantityDto, RecipeETags.parseIfMatch(ifMatch)));
+    }
+
+    @PutMapping("/{id}/ingredient-quantity/{quantityId}")
+    public ResponseEntity<RecipeDto> updateIngredientQuantity(@PathVariable Long id, @PathVariable Long quantityId,
+                                                              @RequestBody IngredientQuantityDto quantityDto,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(recipeService.updateIngredientQuantity(id, quantityId, quantityDto,
+                RecipeETags.parseIfMatch(ifMatch)));
+    }
+
+    @DeleteMapping("/{id}/ingredient-quantity/{quantityId}")
+    public ResponseEntity<RecipeDto> removeIngredientQuantity(@PathVariable Long id, @PathVariable Long quantityId,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return withETag(recipeService.removeIngredientQuantity(id, quantityId, RecipeETags.parseIfMatch(ifMatch)));
     }
 
     @DeleteMapping("/{id}")
-    public void deleteRecipe(@PathVariable Long id) {
-        recipeService.deleteRecipe(id);
+    public void deleteRecipe(@PathVariable Long id,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        recipeService.deleteRecipe(id, RecipeETags.parseIfMatch(ifMatch));
+    }
+
+    private static ResponseEntity<RecipeDto> withETag(VersionedRecipe versionedRecipe) {
+        return ResponseEntity.ok()
+                .eTag(RecipeETags.of(versionedRecipe.version()))
+                .body(versionedRecipe.recipe());
     }
 }
@@ -0,0 +1,34 @@
+package com.maxgarfinkel.recipes.recipe;
+
+/**
+ * Maps between a recipe's optimistic-lock version and its HTTP entity tag.
+ */
+final class RecipeETags {
+
+    private RecipeETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Returns the version named by an {@code If-Match} header, or {@code null} when the header is
+     * absent or {@code *}. A weak tag is accepted because proxies weaken ETags when they compress
+     * responses. Anything that isn't one of our tags maps to a version that can never match.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) return null;
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) return null;
+        if (tag.startsWith("W/")) tag = tag.substring(2);
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -1,29 +1,43 @@
 package com.maxgarfinkel.recipes.recipe;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.maxgarfinkel.recipes.ItemNotFound;
 import com.maxgarfinkel.recipes.ingredient.Ingredient;
 import com.maxgarfinkel.recipes.ingredient.IngredientService;
 import com.maxgarfinkel.recipes.unit.Unit;
 import com.maxgarfinkel.recipes.unit.UnitService;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Observed(name = "recipe.service")
 @RequiredArgsConstructor
 public class RecipeService {
 
     private final RecipeRepository recipeRepository;
     private final IngredientService ingredientService;
     private final UnitService unitService;
+    private final EntityManager entityManager;
 
-    RecipeDto getRecipe(Long id) {
-        return recipeRepository.getReferenceById(id).toDto();
+    VersionedRecipe getRecipe(Long id) {
+        return versioned(findRecipe(id));
+    }
+
+    long getVersion(Long id) {
+        return recipeRepository.findVersionById(id)
+                .orElseThrow(() -> new ItemNotFound(id, "recipe", "Recipe with Id: " + id + " not found"));
     }
 
     List<RecipeDto> getRecipes() {
@@ -34,45 +48,231 @@ public class RecipeService {
     }
 
     @Transactional
-    RecipeDto createRecipe(RecipeDto recipeDto) {
-        List<Ingredient> ingredients = getIngredients(recipeDto);
-        Map<Long, Unit> unitMap = getUnits(recipeDto);
-        Recipe recipe = new Recipe(recipeDto, ingredients, unitMap);
-        return recipeRepository.save(recipe).toDto();
+    VersionedRecipe createRecipe(RecipeDto recipeDto) {
+        var ingredientMap = getIngredients(List.of(recipeDto));
+        var unitMap = getUnits(List.of(recipeDto));
+        Recipe recipe = new Recipe(recipeDto, ingredientMap, unitMap);
+        return versioned(recipeRepository.save(recipe));
     }
 
+    /**
+     * @param expectedVersion the version from the client's {@code If-Match}, or {@code null} to
+     *                        overwrite unconditionally
+     */
     @Transactional
-    RecipeDto updateRecipe(Long id, RecipeDto recipeDto) {
-        var recipe = recipeRepository.findById(id)
-                .orElseThrow(() -> new ItemNotFound(
-                        recipeDto.getId(),
-                        "recipe",
-                        "Recipe with Id: " + recipeDto.getId() + " not found"));
-
-        var ingredients = getIngredients(recipeDto);
-        var unitMap = getUnits(recipeDto);
-        recipe.update(recipeDto, ingredients, unitMap);
-        if (recipeDto.getSourceUrl() != null) {
-            recipe.setSourceUrl(recipeDto.getSourceUrl());
+    VersionedRecipe updateRecipe(Long id, RecipeDto recipeDto, Long expectedVersion) {
+        var recipe = findRecipeForWrite(id, expectedVersion);
+        var ingredientMap = getIngredients(List.of(recipeDto));
+        var unitMap = getUnits(List.of(recipeDto));
+        if (recipe.update(recipeDto, ingredientMap, unitMap)) {
+            return saveWithForcedIncrement(recipe);
         }
-        return recipeRepository.save(recipe).toDto();
+        return versioned(recipeRepository.saveAndFlush(recipe));
     }
 
+    /**
+     * Creates (no id) or updates (with id) many recipes in a single transaction. Ingredients,
+     * units and existing recipes are each loaded with one {@code findAllById}, and the inserts
+     * and updates are grouped into JDBC batches by {@code hibernate.jdbc.batch_size}. Updated
+     * recipes take no row lock: a concurrent write fails the {@code @Version} check at flush.
+     */
     @Transactional
-    void deleteRecipe(Long id) {
-        recipeRepository.deleteById(id);
+    List<RecipeDto> saveRecipes(List<RecipeDto> recipeDtos) {
+        var ingredientMap = getIngredients(recipeDtos);
+        var unitMap = getUnits(recipeDtos);
+
+        List<Long> existingIds = recipeDtos.stream()
+                .map(RecipeDto::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Recipe> existing = existingIds.isEmpty()
+                ? Map.of()
+                : recipeRepository.findAllById(existingIds).stream()
+                        .collect(Collectors.toMap(Recipe::getId, Function.identity()));
+
+        List<Recipe> recipes = new ArrayList<>(recipeDtos.size());
+        for (RecipeDto recipeDto : recipeDtos) {
+            if (recipeDto.getId() == null) {
+                recipes.add(new Recipe(recipeDto, ingredientMap, unitMap));
+                continue;
+            }
+            Recipe recipe = existing.get(recipeDto.getId());
+            if (recipe == null) {
+                throw new ItemNotFound(recipeDto.getId(), "recipe",
+                        "Recipe with Id: " + recipeDto.getId() + " not found");
+            }
+            // Field and row-set changes bump the version through the batched dirty-check UPDATE;
+            // only edits confined to existing quantity rows need the increment forced.
+            if (recipe.update(recipeDto, ingredientMap, unitMap)) {
+                entityManager.lock(recipe, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            }
+            recipes.add(recipe);
+        }
+
+        return recipeRepository.saveAll(recipes).stream()
+                .map(Recipe::toDto)
+                .toList();
     }
 
-    private List<Ingredient> getIngredients(RecipeDto recipeDto) {
-        List<Long> ingredientIds = recipeDto.getIngredientQuantities().stream()
+    /**
+     * Applies a JSON Merge Patch (RFC 7386) to the scalar recipe fields. Only the fields present
+     * in the patch are touched, and {@link Recipe} is {@code @DynamicUpdate}, so the UPDATE
+     * only writes the changed columns. Ingredient quantities are edited through their own
+     * sub-resource rather than by patching the list.
+     */
+    @Transactional
+    VersionedRecipe patchRecipe(Long id, JsonNode patch, Long expectedVersion) {
+        if (patch == null || !patch.isObject()) {
+            throw new InvalidRecipePatchException("A recipe merge patch must be a JSON object");
+        }
+        var recipe = findRecipeForWrite(id, expectedVersion);
+        patch.fields().forEachRemaining(field -> applyPatchField(recipe, field.getKey(), field.getValue()));
+        return versioned(recipeRepository.saveAndFlush(recipe));
+    }
+
+    @Transactional
+    VersionedRecipe addIngredientQuantity(Long recipeId, IngredientQuantityDto quantityDto, Long expectedVersion) {
+        var recipe = findRecipeForWrite(recipeId, expectedVersion);
+        var ingredient = getIngredient(quantityDto);
+        recipe.setIngredientQuantity(ingredient, getUnit(quantityDto, ingredient), quantityOf(quantityDto));
+        return versioned(recipeRepository.saveAndFlush(recipe));
+    }
+
+    @Transactional
+    VersionedRecipe updateIngredientQuantity(Long recipeId, Long quantityId, IngredientQuantityDto quantityDto,
+                                             Long expectedVersion) {
+        var recipe = findRecipeForWrite(recipeId, expectedVersion);
+        var ingredientQuantity = findIngredientQuantity(recipe, quantityId);
+        var ingredient = getIngredient(quantityDto);
+        if (ingredientQuantity.update(ingredient, getUnit(quantityDto, ingredient), quantityOf(quantityDto))) {
+            return saveWithForcedIncrement(recipe);
+        }
+        return versioned(recipeRepository.saveAndFlush(recipe));
+    }
+
+    @Transactional
+    VersionedRecipe removeIngredientQuantity(Long recipeId, Long quantityId, Long expectedVersion) {
+        var recipe = findRecipeForWrite(recipeId, expectedVersion);
+        recipe.removeIngredientQuantity(findIngredientQuantity(recipe, quantityId));
+        return versioned(recipeRepository.saveAndFlush(recipe));
+    }
+
+    @Transactional
+    void deleteRecipe(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            recipeRepository.deleteById(id);
+            return;
+        }
+        var recipe = findRecipe(id);
+        checkVersion(recipe, expectedVersion);
+        recipeRepository.delete(recipe);
+    }
+
+    private Recipe findRecipe(Long id) {
+        return recipeRepository.findById(id)
+                .orElseThrow(() -> new ItemNotFound(id, "recipe", "Recipe with Id: " + id + " not found"));
+    }
+
+    private Recipe findRecipeForWrite(Long id, Long expectedVersion) {
+        var recipe = findRecipe(id);
+        checkVersion(recipe, expectedVersion);
+        return recipe;
+    }
+
+    private static void checkVersion(Recipe recipe, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(recipe.getVersion())) {
+            throw new RecipeVersionMismatchException(recipe.getId(), expectedVersion, recipe.getVersion());
+        }
+    }
+
+    /**
+     * For writes confined to existing quantity rows, which don't dirty the recipe row, so
+     * Hibernate wouldn't bump its version on its own. Field changes and added or removed rows
+     * already bump it through the dirty-check UPDATE. The forced increment is one conditional
+     * UPDATE at commit and takes no row lock; a concurrent writer fails it with an optimistic
+     * lock error. Since it runs after this returns, the version reported is the one it commits.
+     */
+    private VersionedRecipe saveWithForcedIncrement(Recipe recipe) {
+        entityManager.lock(recipe, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        Recipe saved = recipeRepository.saveAndFlush(recipe);
+        return new VersionedRecipe(saved.toDto(), saved.getVersion() + 1);
+    }
+
+    private static VersionedRecipe versioned(Recipe recipe) {
+        return new VersionedRecipe(recipe.toDto(), recipe.getVersion());
+    }
+
+    private IngredientQuantity findIngredientQuantity(Recipe recipe, Long quantityId) {
+        return recipe.findIngredientQuantity(quantityId)
+                .orElseThrow(() -> new ItemNotFound(quantityId, "ingredient quantity",
+                        "Ingredient quantity with Id: " + quantityId + " not found"));
+    }
+
+    private Ingredient getIngredient(IngredientQuantityDto quantityDto) {
+        if (quantityDto.getIngredient() == null || quantityDto.getIngredient().getId() == null) {
+            throw new InvalidRecipePatchException("An ingredient quantity must reference an ingredient id");
+        }
+        Long ingredientId = quantityDto.getIngredient().getId();
+        return ingredientService.findAllById(List.of(ingredientId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new ItemNotFound(ingredientId, "ingredient",
+                        "Ingredient with Id: " + ingredientId + " not found"));
+    }
+
+    private Unit getUnit(IngredientQuantityDto quantityDto, Ingredient ingredient) {
+        return quantityDto.getUnit() != null && quantityDto.getUnit().getId() != null
+                ? unitService.getEntityById(quantityDto.getUnit().getId())
+                : ingredient.getDefaultUnit();
+    }
+
+    private static double quantityOf(IngredientQuantityDto quantityDto) {
+        if (quantityDto.getQuantity() == null) {
+            throw new InvalidRecipePatchException("An ingredient quantity must have a quantity");
+        }
+        return quantityDto.getQuantity();
+    }
+
+    private void applyPatchField(Recipe recipe, String field, JsonNode value) {
+        switch (field) {
+            case "name" -> recipe.setName(textOrNull(field, value));
+            case "method" -> recipe.setMethod(textOrNull(field, value));
+            case "sourceUrl" -> recipe.setSourceUrl(textOrNull(field, value));
+            case "servings" -> {
+                // canConvertToInt alone would accept 3.5 and truncate it to 3.
+                if (!value.isNull() && !(value.canConvertToExactIntegral() && value.canConvertToInt())) {
+                    throw new InvalidRecipePatchException("servings must be an integer or null");
+                }
+                recipe.setServings(value.isNull() ? null : value.intValue());
+            }
+            case "ingredientQuantities" -> throw new InvalidRecipePatchException(
+                    "ingredientQuantities cannot be merge patched; use the ingredient-quantity sub-resource");
+            default -> throw new InvalidRecipePatchException("Unknown or read-only recipe field: " + field);
+        }
+    }
+
+    private static String textOrNull(String field, JsonNode value) {
+        if (value.isNull()) return null;
+        if (!value.isTextual()) {
+            throw new InvalidRecipePatchException(field + " must be a string or null");
+        }
+        return value.textValue();
+    }
+
+    private Map<Long, Ingredient> getIngredients(Collection<RecipeDto> recipeDtos) {
+        List<Long> ingredientIds = recipeDtos.stream()
+                .flatMap(r -> r.getIngredientQuantities().stream())
                 .map(i -> i.getIngredient().getId())
+                .distinct()
                 .toList();
-
-        return ingredientService.findAllById(ingredientIds);
+        if (ingredientIds.isEmpty()) return Map.of();
+        return ingredientService.findAllById(ingredientIds).stream()
+                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
     }
 
-    private Map<Long, Unit> getUnits(RecipeDto recipeDto) {
-        List<Long> unitIds = recipeDto.getIngredientQuantities().stream()
+    private Map<Long, Unit> getUnits(Collection<RecipeDto> recipeDtos) {
+        List<Long> unitIds = recipeDtos.stream()
+                .flatMap(r -> r.getIngredientQuantities().stream())
                 .filter(iq -> iq.getUnit() != null && iq.getUnit().getId() != null)
                 .map(iq -> iq.getUnit().getId())
                 .distinct()
@@ -0,0 +1,8 @@
+package com.maxgarfinkel.recipes.recipe;
+
+public class RecipeVersionMismatchException extends RuntimeException {
+
+    public RecipeVersionMismatchException(Long id, long expectedVersion, long currentVersion) {
+        super("Recipe " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+    }
+}
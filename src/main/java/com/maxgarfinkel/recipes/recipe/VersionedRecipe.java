@@ -0,0 +1,5 @@
+package com.maxgarfinkel.recipes.recipe;
+
+/** A recipe together with the optimistic-lock version it was read or written at. */
+record VersionedRecipe(RecipeDto recipe, long version) {
+}
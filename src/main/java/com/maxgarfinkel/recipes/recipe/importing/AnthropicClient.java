@@ -2,28 +2,64 @@ package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpStatusCode;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Component
 @Slf4j
 public class AnthropicClient {
 
-    private static final String MESSAGES_URL = "https://api.anthropic.com/v1/messages";
+    /** Separate breaker and concurrency pool per kind of call, so slow vision calls can't starve text. */
+    public enum Lane { TEXT, VISION }
 
     private final RestClient restClient;
     private final ObjectMapper objectMapper;
     private final String apiKey;
+    private final String messagesUrl;
+    private final ImportMetrics metrics;
+    private final AnthropicRateLimiter rateLimiter;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Map<Lane, CircuitBreaker> circuitBreakers;
+    private final Map<Lane, Bulkhead> bulkheads;
 
     public AnthropicClient(RestClient.Builder restClientBuilder,
                            ObjectMapper objectMapper,
-                           @Value("${anthropic.api-key:}") String apiKey) {
+                           ImportMetrics metrics,
+                           AnthropicRateLimiter rateLimiter,
+                           CircuitBreakerRegistry circuitBreakerRegistry,
+                           BulkheadRegistry bulkheadRegistry,
+                           @Value("${anthropic.api-key:}") String apiKey,
+                           @Value("${anthropic.base-url:https://api.anthropic.com}") String baseUrl,
+                           @Value("${anthropic.retry.max-attempts:4}") int maxAttempts,
+                           @Value("${anthropic.retry.initial-backoff:PT0.5S}") Duration initialBackoff,
+                           @Value("${anthropic.retry.max-backoff:PT20S}") Duration maxBackoff) {
         SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
         factory.setConnectTimeout(Duration.ofSeconds(5));
         factory.setReadTimeout(Duration.ofSeconds(30));
@@ -32,6 +68,18 @@ public class AnthropicClient {
                 .build();
         this.objectMapper = objectMapper;
         this.apiKey = apiKey;
+        this.messagesUrl = baseUrl + "/v1/messages";
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.circuitBreakers = Map.of(
+                Lane.TEXT, circuitBreakerRegistry.circuitBreaker(ResilienceConfig.ANTHROPIC_TEXT),
+                Lane.VISION, circuitBreakerRegistry.circuitBreaker(ResilienceConfig.ANTHROPIC_VISION));
+        this.bulkheads = Map.of(
+                Lane.TEXT, bulkheadRegistry.bulkhead(ResilienceConfig.ANTHROPIC_TEXT),
+                Lane.VISION, bulkheadRegistry.bulkhead(ResilienceConfig.ANTHROPIC_VISION));
     }
 
     public boolean isConfigured() {
@@ -39,39 +87,282 @@ public class AnthropicClient {
     }
 
     public JsonNode sendMessages(Object requestBody) {
+        return sendMessages(requestBody, Lane.TEXT);
+    }
+
+    public JsonNode sendMessages(Object requestBody, Lane lane) {
+        return sendMessages(requestBody, lane, AnthropicRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Sends a messages request, waiting for a rate-limit permit first. 429 and 5xx responses and
+     * failures to connect are retried with jittered exponential backoff, never sooner than a
+     * {@code retry-after} asks for. Other errors, timeouts included, fail straight away, and so
+     * does every call while the lane's circuit breaker is open.
+     */
+    public JsonNode sendMessages(Object requestBody, Lane lane, AnthropicRateLimiter.Priority priority) {
+        String model = modelOf(requestBody);
+        return call(requestBody, lane, priority, body -> {
+            JsonNode response = objectMapper.readTree(body);
+            metrics.recordTokenUsage(model, response.path("usage"));
+            return response;
+        });
+    }
+
+    /**
+     * Sends a messages request with {@code stream: true} and hands each text delta, or each
+     * chunk of tool input JSON when the request forces a tool, to {@code onText} as it arrives.
+     * Returns the full concatenated text once the message ends. Failures before the first delta
+     * are retried like {@link #sendMessages}; once text has been handed out the call can't be
+     * replayed, so a broken stream fails with an {@link AnthropicApiException}. An
+     * {@link ImportCancelledException} thrown by {@code onText} ends the call as it is.
+     */
+    public String streamMessages(Map<String, Object> requestBody, Lane lane, Consumer<String> onText) {
+        String model = modelOf(requestBody);
+        Map<String, Object> streamingBody = new LinkedHashMap<>(requestBody);
+        streamingBody.put("stream", true);
+        return call(streamingBody, lane, AnthropicRateLimiter.Priority.INTERACTIVE,
+                body -> readEventStream(model, body, onText));
+    }
+
+    private <T> T call(Object requestBody, Lane lane, AnthropicRateLimiter.Priority priority,
+                       BodyReader<T> reader) {
+        String model = modelOf(requestBody);
+        long start = System.nanoTime();
+        boolean success = false;
+        boolean cancelled = false;
         try {
-            String json = objectMapper.writeValueAsString(requestBody);
-            String responseBody = restClient.post()
-                    .uri(MESSAGES_URL)
-                    .header("x-api-key", apiKey)
-                    .header("anthropic-version", "2023-06-01")
-                    .header("content-type", "application/json")
-                    .body(json)
-                    .retrieve()
-                    .onStatus(
-                            status -> status.value() == 401 || status.value() == 403,
-                            (req, res) -> {
-                                log.error("Anthropic authentication failed ({}). Check ANTHROPIC_API_KEY.", res.getStatusCode());
-                                throw new AnthropicApiException("Authentication failed: " + res.getStatusCode());
-                            })
-                    .onStatus(
-                            status -> status.value() == 429,
-                            (req, res) -> {
-                                log.warn("Anthropic rate limit exceeded.");
-                                throw new AnthropicApiException("Rate limit exceeded");
-                            })
-                    .onStatus(
-                            HttpStatusCode::is5xxServerError,
-                            (req, res) -> {
-                                log.warn("Anthropic server error: {}", res.getStatusCode());
-                                throw new AnthropicApiException("Server error: " + res.getStatusCode());
-                            })
-                    .body(String.class);
-            return objectMapper.readTree(responseBody);
+            // Serialised once for all attempts. byte[] values (images) are base64-encoded straight
+            // into this buffer rather than through an intermediate String.
+            byte[] json = objectMapper.writeValueAsBytes(requestBody);
+            for (int attempt = 1; ; attempt++) {
+                metrics.recordRateLimitWait(priority.name(), rateLimiter.acquire(priority));
+
+                RawResponse<T> response;
+                try {
+                    response = guardedPost(lane, json, reader);
+                } catch (ResourceAccessException e) {
+                    // Virtual-thread socket I/O fails rather than blocks when interrupted.
+                    if (Thread.currentThread().isInterrupted()) throw interrupted(e);
+                    if (attempt >= maxAttempts || !isConnectFailure(e)) throw e;
+                    retryAfter(model, attempt, "connect_error", null, e.getMessage());
+                    continue;
+                }
+                rateLimiter.onResponse(response.headers());
+
+                int status = response.status();
+                if (status >= 200 && status < 300) {
+                    success = true;
+                    return response.result();
+                }
+                if (status == 401 || status == 403) {
+                    log.error("Anthropic authentication failed ({}). Check ANTHROPIC_API_KEY.", status);
+                    throw new AnthropicApiException("Authentication failed: " + status);
+                }
+                if (status != 429 && status < 500) {
+                    throw new AnthropicApiException("Anthropic API returned " + status + ": " + response.error());
+                }
+                if (attempt >= maxAttempts) {
+                    log.warn("Anthropic returned {} after {} attempts, giving up.", status, attempt);
+                    throw new AnthropicApiException(status == 429 ? "Rate limit exceeded" : "Server error: " + status);
+                }
+                retryAfter(model, attempt, status == 429 ? "rate_limited" : "server_error",
+                        response.headers().getFirst(HttpHeaders.RETRY_AFTER), "HTTP " + status);
+            }
+        } catch (ImportCancelledException e) {
+            cancelled = true;
+            throw e;
         } catch (AnthropicApiException e) {
             throw e;
+        } catch (InterruptedException e) {
+            cancelled = true;
+            throw interrupted(e);
         } catch (Exception e) {
             throw new AnthropicApiException("Anthropic API call failed: " + e.getMessage(), e);
+        } finally {
+            metrics.recordLlmCall(model, Duration.ofNanos(System.nanoTime() - start),
+                    success ? "success" : cancelled ? "cancelled" : "error");
         }
     }
+
+    /**
+     * One attempt through the lane's breaker and bulkhead. 5xx responses and I/O failures count
+     * against the breaker; 429s don't, since they reflect our quota, not Anthropic's health.
+     */
+    private <T> RawResponse<T> guardedPost(Lane lane, byte[] json, BodyReader<T> reader) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(lane);
+        Bulkhead bulkhead = bulkheads.get(lane);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new AnthropicUnavailableException("Anthropic " + lane + " circuit is open");
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            throw new AnthropicUnavailableException("Too many concurrent Anthropic " + lane + " calls");
+        }
+        long start = System.nanoTime();
+        try {
+            RawResponse<T> response = post(json, reader);
+            // Timed to the response headers, so a long but healthy stream isn't a slow call.
+            long elapsed = response.headersAt() - start;
+            if (response.status() >= 500) {
+                circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                        new AnthropicApiException("Server error: " + response.status()));
+            } else {
+                circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            }
+            return response;
+        } catch (ImportCancelledException e) {
+            // The caller hung up mid-stream; that says nothing about Anthropic's health.
+            circuitBreaker.releasePermission();
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    private <T> RawResponse<T> post(byte[] json, BodyReader<T> reader) {
+        return restClient.post()
+                .uri(messagesUrl)
+                .header("x-api-key", apiKey)
+                .header("anthropic-version", "2023-06-01")
+                .header("content-type", "application/json")
+                .body(json)
+                .exchange((req, res) -> {
+                    long headersAt = System.nanoTime();
+                    int status = res.getStatusCode().value();
+                    if (status >= 200 && status < 300) {
+                        return new RawResponse<>(status, res.getHeaders(), headersAt, null, reader.read(res.getBody()));
+                    }
+                    return new RawResponse<>(status, res.getHeaders(), headersAt,
+                            new String(res.getBody().readAllBytes(), StandardCharsets.UTF_8), null);
+                });
+    }
+
+    /**
+     * Reads a messages event stream. Anthropic repeats the event type inside each {@code data:}
+     * payload, so the {@code event:} lines are not needed. Token usage arrives split across
+     * {@code message_start} (input) and {@code message_delta} (output) and is recorded once the
+     * message ends.
+     */
+    private String readEventStream(String model, InputStream body, Consumer<String> onText) throws IOException {
+        StringBuilder text = new StringBuilder();
+        ObjectNode usage = objectMapper.createObjectNode();
+        StringBuilder data = new StringBuilder();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("data:")) {
+                    data.append(line.substring(5).stripLeading());
+                    continue;
+                }
+                if (!line.isEmpty() || data.isEmpty()) {
+                    continue;
+                }
+                JsonNode event = objectMapper.readTree(data.toString());
+                data.setLength(0);
+                switch (event.path("type").asText()) {
+                    case "message_start" -> {
+                        if (event.path("message").path("usage") instanceof ObjectNode start) {
+                            usage.setAll(start);
+                        }
+                    }
+                    case "content_block_delta" -> {
+                        JsonNode delta = event.path("delta");
+                        // Tool calls stream their input as JSON text, so both kinds are passed on.
+                        String chunk = switch (delta.path("type").asText()) {
+                            case "text_delta" -> delta.path("text").asText();
+                            case "input_json_delta" -> delta.path("partial_json").asText();
+                            default -> "";
+                        };
+                        if (!chunk.isEmpty()) {
+                            text.append(chunk);
+                            onText.accept(chunk);
+                        }
+                    }
+                    case "message_delta" -> {
+                        if (event.path("usage") instanceof ObjectNode delta) {
+                            usage.setAll(delta);
+                        }
+                    }
+                    case "error" -> throw new AnthropicApiException(
+                            "Anthropic stream failed: " + event.path("error").path("message").asText());
+                    default -> {
+                        // ping, content_block_start/stop and message_stop carry nothing we need
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (Thread.currentThread().isInterrupted()) throw interrupted(e);
+            if (text.isEmpty()) throw e;
+            throw new AnthropicApiException("Anthropic stream interrupted: " + e.getMessage(), e);
+        }
+        metrics.recordTokenUsage(model, usage);
+        return text.toString();
+    }
+
+    private void retryAfter(String model, int attempt, String reason, String retryAfterHeader, String detail)
+            throws InterruptedException {
+        Duration backoff = backoff(attempt, retryAfterHeader);
+        log.warn("Anthropic call failed ({}), retrying in {} ms (attempt {}/{}).",
+                detail, backoff.toMillis(), attempt + 1, maxAttempts);
+        metrics.recordLlmRetry(model, reason);
+        Thread.sleep(backoff);
+    }
+
+    /**
+     * Whether the request never reached Anthropic, so sending it again is safe and cheap. A timeout
+     * is not retried: the request may already be running, and each attempt has cost the caller a
+     * full read timeout.
+     */
+    static boolean isConnectFailure(ResourceAccessException e) {
+        Throwable cause = e.getMostSpecificCause();
+        return cause instanceof ConnectException
+                || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * An interrupt means whoever is waiting on the call is shutting it down, so it ends the call
+     * as cancelled rather than as an Anthropic failure, with the thread's interrupt flag kept.
+     */
+    private static ImportCancelledException interrupted(Exception cause) {
+        Thread.currentThread().interrupt();
+        return new ImportCancelledException("Anthropic call was interrupted", cause);
+    }
+
+    /** Full-jitter exponential backoff, raised to {@code retry-after} when the server sent one. */
+    Duration backoff(int attempt, String retryAfterHeader) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        Duration backoff = Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        if (retryAfterHeader != null) {
+            try {
+                Duration retryAfter = Duration.ofSeconds(Long.parseLong(retryAfterHeader.trim()));
+                if (retryAfter.compareTo(backoff) > 0) {
+                    backoff = retryAfter;
+                }
+            } catch (NumberFormatException ignored) {
+                // HTTP-date form is not used by the Anthropic API
+            }
+        }
+        return backoff;
+    }
+
+    private static String modelOf(Object requestBody) {
+        if (requestBody instanceof Map<?, ?> map && map.get("model") instanceof String model) {
+            return model;
+        }
+        return "unknown";
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    private record RawResponse<T>(int status, HttpHeaders headers, long headersAt, String error, T result) {
+    }
 }
@@ -0,0 +1,164 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Client-side token bucket for Anthropic requests, sized to our account tier, so bursts queue
+ * here instead of being rejected upstream. The bucket also follows what the API reports: a
+ * {@code retry-after}, or an {@code anthropic-ratelimit-*-remaining} of zero, pauses every caller
+ * until the matching reset time.
+ *
+ * <p>Interactive callers (a user waiting on a preview) always go before bulk callers. A bulk
+ * caller only takes a permit when no interactive caller is waiting.</p>
+ */
+@Component
+public class AnthropicRateLimiter {
+
+    public enum Priority { INTERACTIVE, BULK }
+
+    private static final String[] LIMIT_FAMILIES = {"requests", "tokens", "input-tokens", "output-tokens"};
+
+    private final double capacity;
+    private final double permitsPerNano;
+    private final Duration maxWait;
+    private final LongSupplier nanoTime;
+    private final Clock clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private double permits;
+    private long lastRefill;
+    private long pausedUntil;
+    private int interactiveWaiting;
+
+    @Autowired
+    public AnthropicRateLimiter(@Value("${anthropic.rate-limit.requests-per-minute:50}") int requestsPerMinute,
+                                @Value("${anthropic.rate-limit.burst:10}") int burst,
+                                @Value("${anthropic.rate-limit.max-wait:PT30S}") Duration maxWait) {
+        this(requestsPerMinute, burst, maxWait, System::nanoTime, Clock.systemUTC());
+    }
+
+    AnthropicRateLimiter(int requestsPerMinute, int burst, Duration maxWait, LongSupplier nanoTime, Clock clock) {
+        this.capacity = burst;
+        this.permitsPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxWait = maxWait;
+        this.nanoTime = nanoTime;
+        this.clock = clock;
+        this.permits = burst;
+        this.lastRefill = nanoTime.getAsLong();
+        this.pausedUntil = lastRefill;
+    }
+
+    /**
+     * Blocks until a request may be sent.
+     *
+     * @return how long the caller waited
+     * @throws AnthropicApiException if no permit became available within {@code max-wait}
+     */
+    public Duration acquire(Priority priority) {
+        long start = nanoTime.getAsLong();
+        long deadline = start + maxWait.toNanos();
+        lock.lock();
+        try {
+            if (priority == Priority.INTERACTIVE) interactiveWaiting++;
+            try {
+                while (true) {
+                    long wait = tryAcquire(priority);
+                    if (wait == 0) {
+                        return Duration.ofNanos(nanoTime.getAsLong() - start);
+                    }
+                    long remaining = deadline - nanoTime.getAsLong();
+                    if (remaining <= 0) {
+                        throw new AnthropicApiException("Timed out waiting for Anthropic rate limit");
+                    }
+                    changed.awaitNanos(Math.min(wait, remaining));
+                }
+            } finally {
+                if (priority == Priority.INTERACTIVE) interactiveWaiting--;
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportCancelledException("Interrupted waiting for Anthropic rate limit", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Updates the bucket from a response's {@code retry-after} and {@code anthropic-ratelimit-*}
+     * headers.
+     */
+    public void onResponse(HttpHeaders headers) {
+        lock.lock();
+        try {
+            String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                try {
+                    pauseFor(Duration.ofSeconds(Long.parseLong(retryAfter.trim())));
+                } catch (NumberFormatException ignored) {
+                    // HTTP-date form; the ratelimit reset headers below cover the same case
+                }
+            }
+            for (String family : LIMIT_FAMILIES) {
+                String remaining = headers.getFirst("anthropic-ratelimit-" + family + "-remaining");
+                String reset = headers.getFirst("anthropic-ratelimit-" + family + "-reset");
+                if (remaining == null) continue;
+                try {
+                    long left = Long.parseLong(remaining.trim());
+                    if (family.equals("requests")) {
+                        permits = Math.min(permits, left);
+                    }
+                    if (left <= 0 && reset != null) {
+                        pauseFor(Duration.between(clock.instant(), Instant.parse(reset.trim())));
+                    }
+                } catch (NumberFormatException | DateTimeParseException ignored) {
+                    // Malformed headers leave the local bucket in charge
+                }
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns 0 and takes a permit, or returns the nanoseconds to wait before trying again. */
+    long tryAcquire(Priority priority) {
+        long now = nanoTime.getAsLong();
+        refill(now);
+        if (now < pausedUntil) {
+            return pausedUntil - now;
+        }
+        long untilNextPermit = permits >= 1 ? 0 : (long) Math.ceil((1 - permits) / permitsPerNano);
+        if (priority == Priority.BULK && interactiveWaiting > 0) {
+            return Math.max(untilNextPermit, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (untilNextPermit > 0) {
+            return untilNextPermit;
+        }
+        permits -= 1;
+        return 0;
+    }
+
+    private void refill(long now) {
+        permits = Math.min(capacity, permits + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+
+    private void pauseFor(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) return;
+        pausedUntil = Math.max(pausedUntil, nanoTime.getAsLong() + duration.toNanos());
+    }
+}
@@ -0,0 +1,12 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+/**
+ * Thrown without calling Anthropic when its circuit breaker is open or its bulkhead is full.
+ * Callers treat it like any other {@link AnthropicApiException} and fall back.
+ */
+public class AnthropicUnavailableException extends AnthropicApiException {
+
+    public AnthropicUnavailableException(String message) {
+        super(message);
+    }
+}
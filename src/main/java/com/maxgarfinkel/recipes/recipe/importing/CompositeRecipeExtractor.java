@@ -1,20 +1,37 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 public class CompositeRecipeExtractor implements RecipeExtractor {
 
     private final List<RecipeExtractor> extractors;
+    private final ImportMetrics metrics;
 
-    public CompositeRecipeExtractor(List<RecipeExtractor> extractors) {
+    public CompositeRecipeExtractor(List<RecipeExtractor> extractors, ImportMetrics metrics) {
         this.extractors = extractors;
+        this.metrics = metrics;
     }
 
     @Override
     public Optional<RecipeImportDraft> extract(String html, String sourceUrl) {
+        return extract(html, sourceUrl, null);
+    }
+
+    /**
+     * Like {@link #extract(String, String)}, but extractors that can stream report partial
+     * results to {@code listener} while they run. A {@code null} listener disables streaming.
+     */
+    public Optional<RecipeImportDraft> extract(String html, String sourceUrl, DraftListener listener) {
         for (RecipeExtractor extractor : extractors) {
-            Optional<RecipeImportDraft> result = extractor.extract(html, sourceUrl);
+            long start = System.nanoTime();
+            Optional<RecipeImportDraft> result =
+                    listener != null && extractor instanceof StreamingRecipeExtractor streaming
+                            ? streaming.extract(html, sourceUrl, listener)
+                            : extractor.extract(html, sourceUrl);
+            metrics.recordExtraction(extractor.getClass().getSimpleName(),
+                    Duration.ofNanos(System.nanoTime() - start), result.isPresent());
             if (result.isPresent()) {
                 return result;
             }
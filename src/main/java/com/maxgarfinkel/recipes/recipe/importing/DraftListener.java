@@ -0,0 +1,20 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+/**
+ * Receives the parts of a draft as a streaming extractor produces them. Every callback is
+ * optional; the complete draft is still returned by the extractor once it has been validated.
+ */
+public interface DraftListener {
+
+    default void onName(String name) {
+    }
+
+    default void onServings(int servings) {
+    }
+
+    default void onMethod(String method) {
+    }
+
+    default void onIngredientLine(int index, RecipeImportDraft.ImportedIngredientLine line) {
+    }
+}
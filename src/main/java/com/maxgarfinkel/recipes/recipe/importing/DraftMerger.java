@@ -0,0 +1,69 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Combines drafts extracted from consecutive pages of one recipe into a single draft. The
+ * first page that states a name or servings wins; later pages usually carry an inferred name
+ * or none. Methods are joined in page order, and ingredient lines are appended with any line
+ * already seen on an earlier page dropped, since photos of a spread often overlap.
+ */
+final class DraftMerger {
+
+    private DraftMerger() {
+    }
+
+    static RecipeImportDraft merge(List<RecipeImportDraft> pages) {
+        if (pages.size() == 1) {
+            return pages.getFirst();
+        }
+        RecipeImportDraft merged = new RecipeImportDraft();
+        StringBuilder method = new StringBuilder();
+        List<RecipeImportDraft.ImportedIngredientLine> lines = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (RecipeImportDraft page : pages) {
+            if (isBlank(merged.getName()) && !isBlank(page.getName())) {
+                merged.setName(page.getName());
+            }
+            if (merged.getServings() == null) {
+                merged.setServings(page.getServings());
+            }
+            if (merged.getExtractionSource() == null) {
+                merged.setExtractionSource(page.getExtractionSource());
+            }
+            appendMethod(method, page.getMethod());
+            if (page.getIngredientLines() != null) {
+                for (RecipeImportDraft.ImportedIngredientLine line : page.getIngredientLines()) {
+                    if (line.getRawText() == null || seen.add(line.getRawText().strip().toLowerCase(Locale.ROOT))) {
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+        merged.setMethod(method.isEmpty() ? null : method.toString());
+        merged.setIngredientLines(lines);
+        return merged;
+    }
+
+    /**
+     * A page that ends mid-sentence is continued on the next one, so the two are joined with a
+     * space; otherwise the next page starts a new paragraph.
+     */
+    private static void appendMethod(StringBuilder method, String next) {
+        if (isBlank(next)) return;
+        if (!method.isEmpty()) {
+            char last = method.charAt(method.length() - 1);
+            method.append(last == '.' || last == '!' || last == '?' || last == ':' ? "\n\n" : " ");
+        }
+        method.append(next.strip());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
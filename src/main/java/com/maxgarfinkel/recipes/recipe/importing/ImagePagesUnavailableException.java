@@ -0,0 +1,25 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Some pages of a multi-page image import never got an answer from the vision model. Unlike a
+ * page with no recipe on it, retrying later may well work, so the import fails rather than
+ * returning a recipe with those pages missing.
+ */
+public class ImagePagesUnavailableException extends RecipeImportException {
+
+    private final List<Integer> failedPages;
+
+    public ImagePagesUnavailableException(List<Integer> failedPages, int pageCount) {
+        super("Could not read page(s) " + failedPages.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                + " of " + pageCount + ": the image service is unavailable, try again shortly");
+        this.failedPages = failedPages;
+    }
+
+    /** One-based page numbers, in upload order. */
+    public List<Integer> getFailedPages() {
+        return failedPages;
+    }
+}
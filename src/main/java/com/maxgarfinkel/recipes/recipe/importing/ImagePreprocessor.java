@@ -0,0 +1,247 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * Shrinks uploaded photos to the resolution the vision model actually uses before they are sent.
+ * Images at least twice {@code import.image.max-edge} on the long edge are decoded with source
+ * subsampling, so the decoded copy is between one and two times that size: a 4032x3024 photo
+ * decodes at 2016x1512 rather than 12 megapixels. Smaller images are decoded in full. They are
+ * then turned upright according to their EXIF orientation, scaled so the long edge is at most
+ * {@code import.image.max-edge} and re-encoded as JPEG. Re-encoding drops all metadata,
+ * EXIF and GPS included.
+ *
+ * <p>Formats ImageIO can't decode (WebP, HEIC) are passed through unchanged and left for the
+ * API to accept or reject.
+ */
+@Component
+@Slf4j
+public class ImagePreprocessor {
+
+    static final String JPEG = "image/jpeg";
+
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final int maxEdge;
+    private final float jpegQuality;
+    private final ImportMetrics metrics;
+
+    public ImagePreprocessor(@Value("${import.image.max-edge:1568}") int maxEdge,
+                             @Value("${import.image.jpeg-quality:0.85}") float jpegQuality,
+                             ImportMetrics metrics) {
+        this.maxEdge = maxEdge;
+        this.jpegQuality = jpegQuality;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param sha256     hex SHA-256 of {@code data}, the bytes actually sent
+     * @param hash       {@link PerceptualHash#dHash} of the upright image, or {@code null} when the
+     *                   image couldn't be decoded
+     * @param detailHash {@link PerceptualHash#detailHash} of the upright image, or {@code null}
+     *                   along with {@code hash}
+     */
+    public record PreparedImage(byte[] data, String mediaType, String sha256, Long hash, long[] detailHash) {
+
+        static PreparedImage undecoded(byte[] data, String mediaType) {
+            return new PreparedImage(data, mediaType, sha256(data), null, null);
+        }
+    }
+
+    public PreparedImage prepare(byte[] imageBytes, String mediaType) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage source = decode(imageBytes);
+            if (source == null) {
+                log.debug("Image type {} can't be decoded locally, sending it unchanged.", mediaType);
+                return PreparedImage.undecoded(imageBytes, mediaType);
+            }
+            BufferedImage upright = scaleAndOrient(source, exifOrientation(imageBytes));
+            byte[] jpeg = encodeJpeg(upright);
+            metrics.recordImagePreprocessing(Duration.ofNanos(System.nanoTime() - start),
+                    imageBytes.length, jpeg.length);
+            return new PreparedImage(jpeg, JPEG, sha256(jpeg),
+                    PerceptualHash.dHash(upright), PerceptualHash.detailHash(upright));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Image preprocessing failed, sending the original: {}", e.getMessage());
+            return PreparedImage.undecoded(imageBytes, mediaType);
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Decodes the image, skipping rows and columns up front when it is far larger than needed. */
+    BufferedImage decode(byte[] imageBytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int subsampling = subsampling(Math.max(reader.getWidth(0), reader.getHeight(0)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * The largest whole step that keeps the decoded long edge at or above the target. Subsampling
+     * is nearest-neighbour, so it never goes below the target and the bicubic pass in
+     * {@link #scaleAndOrient} does the rest.
+     */
+    int subsampling(int longEdge) {
+        return Math.max(1, longEdge / maxEdge);
+    }
+
+    /**
+     * Scales and rotates in one draw onto an opaque RGB canvas. The white fill stands in for any
+     * transparency, which JPEG can't carry.
+     */
+    private BufferedImage scaleAndOrient(BufferedImage source, int orientation) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean swap = orientation >= 5 && orientation <= 8;
+        int outWidth = swap ? height : width;
+        int outHeight = swap ? width : height;
+
+        AffineTransform transform = orientationTransform(orientation, outWidth, outHeight);
+        transform.concatenate(AffineTransform.getScaleInstance(scale, scale));
+
+        BufferedImage target = new BufferedImage(outWidth, outHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, outWidth, outHeight);
+            g.drawImage(source, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /** Maps EXIF orientations 1-8 onto the transform that displays the image upright. */
+    private static AffineTransform orientationTransform(int orientation, int width, int height) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, width, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, width, height);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, height);
+            default -> new AffineTransform();
+        };
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(JPEG).next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the orientation tag from a JPEG's EXIF segment, or returns 1 (upright) when there
+     * isn't one. Only IFD0 is searched, which is where cameras put it.
+     */
+    static int exifOrientation(byte[] data) {
+        if (data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // start of scan: no more metadata segments
+            }
+            int length = readUnsignedShort(data, pos + 2, false);
+            if (marker == 0xE1 && length >= 8 && pos + 2 + length <= data.length && isExifHeader(data, pos + 4)) {
+                return orientationFromTiff(data, pos + 10, pos + 2 + length);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static boolean isExifHeader(byte[] data, int pos) {
+        return data[pos] == 'E' && data[pos + 1] == 'x' && data[pos + 2] == 'i' && data[pos + 3] == 'f'
+                && data[pos + 4] == 0 && data[pos + 5] == 0;
+    }
+
+    private static int orientationFromTiff(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) return 1;
+        boolean littleEndian = data[tiff] == 'I' && data[tiff + 1] == 'I';
+        long ifdOffset = readUnsignedInt(data, tiff + 4, littleEndian);
+        if (ifdOffset < 8 || tiff + ifdOffset + 2 > end) return 1;
+        int ifd = tiff + (int) ifdOffset;
+        int entries = readUnsignedShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > end) break;
+            if (readUnsignedShort(data, entry, littleEndian) == ORIENTATION_TAG) {
+                int orientation = readUnsignedShort(data, entry + 8, littleEndian);
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readUnsignedShort(byte[] data, int pos, boolean littleEndian) {
+        int a = data[pos] & 0xFF;
+        int b = data[pos + 1] & 0xFF;
+        return littleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    private static long readUnsignedInt(byte[] data, int pos, boolean littleEndian) {
+        long high = readUnsignedShort(data, littleEndian ? pos + 2 : pos, littleEndian);
+        long low = readUnsignedShort(data, littleEndian ? pos : pos + 2, littleEndian);
+        return (high << 16) | low;
+    }
+}
@@ -0,0 +1,5 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+/** One uploaded image and its declared content type. */
+public record ImageUpload(byte[] data, String mediaType) {
+}
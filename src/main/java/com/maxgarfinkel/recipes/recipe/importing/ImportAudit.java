@@ -0,0 +1,76 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/** One recorded LLM extraction call. See {@link ImportAuditService}. */
+@Entity
+@Table(name = "import_audit")
+@Getter
+@NoArgsConstructor
+public class ImportAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(length = 2048)
+    private String sourceUrl;
+
+    /** The fetched page, gzip-compressed. */
+    @Column(name = "html_gzip", nullable = false)
+    private byte[] htmlGzip;
+
+    @Column(nullable = false)
+    private String promptVersion;
+
+    @Column(nullable = false)
+    private String model;
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    /** The tool input JSON, or the text answer when no tool was used. */
+    @Column(nullable = false, columnDefinition = "text")
+    private String rawResponse;
+
+    /** Whether the response passed the extraction schema when it was recorded. */
+    @Column(nullable = false)
+    private boolean parsed;
+
+    @Column(nullable = false)
+    private long latencyMs;
+
+    private Integer inputTokens;
+    private Integer outputTokens;
+    private Integer cacheReadInputTokens;
+    private Integer cacheCreationInputTokens;
+
+    ImportAudit(String sourceUrl, byte[] htmlGzip, String promptVersion, String model, String requestHash,
+                String rawResponse, boolean parsed, long latencyMs, Integer inputTokens, Integer outputTokens,
+                Integer cacheReadInputTokens, Integer cacheCreationInputTokens) {
+        this.createdAt = Instant.now();
+        this.sourceUrl = sourceUrl;
+        this.htmlGzip = htmlGzip;
+        this.promptVersion = promptVersion;
+        this.model = model;
+        this.requestHash = requestHash;
+        this.rawResponse = rawResponse;
+        this.parsed = parsed;
+        this.latencyMs = latencyMs;
+        this.inputTokens = inputTokens;
+        this.outputTokens = outputTokens;
+        this.cacheReadInputTokens = cacheReadInputTokens;
+        this.cacheCreationInputTokens = cacheCreationInputTokens;
+    }
+
+    public String getHtml() {
+        return ImportAuditService.gunzip(htmlGzip);
+    }
+}
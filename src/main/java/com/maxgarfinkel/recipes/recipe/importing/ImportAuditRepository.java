@@ -0,0 +1,26 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ImportAuditRepository extends JpaRepository<ImportAudit, Long> {
+
+    /** Ids only, so a replay can load one row at a time instead of every page at once. */
+    @Query("SELECT a.id FROM ImportAudit a ORDER BY a.id DESC")
+    List<Long> findLatestIds(Pageable pageable);
+
+    @Query("SELECT a.id FROM ImportAudit a WHERE a.promptVersion = :promptVersion ORDER BY a.id DESC")
+    List<Long> findLatestIdsByPromptVersion(@Param("promptVersion") String promptVersion, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImportAudit a WHERE a.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
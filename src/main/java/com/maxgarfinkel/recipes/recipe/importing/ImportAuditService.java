@@ -0,0 +1,118 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records every LLM extraction call with the page it was made for, so a prompt or parser change
+ * can be replayed offline against real inputs. The prompt version is the file name of
+ * {@code anthropic.prompts.llm-extraction}, e.g. {@code llm-extraction-v3}. Each row holds a
+ * whole page, so rows older than {@code import.audit.retention} are deleted on a schedule.
+ */
+@Service
+@Slf4j
+public class ImportAuditService {
+
+    /** What {@link LlmExtractor} knows about a finished call. {@code usage} is null when the response had none. */
+    public record LlmCall(String sourceUrl, String html, String model, String userPrompt, String response,
+                          boolean parsed, Duration latency, JsonNode usage) {
+    }
+
+    private final ImportAuditRepository repository;
+    private final boolean enabled;
+    private final Duration retention;
+    private final String promptVersion;
+
+    public ImportAuditService(ImportAuditRepository repository,
+                              @Value("${import.audit.enabled:true}") boolean enabled,
+                              @Value("${import.audit.retention:P30D}") Duration retention,
+                              @Value("${anthropic.prompts.llm-extraction}") Resource llmExtractionPrompt) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.promptVersion = StringUtils.stripFilenameExtension(String.valueOf(llmExtractionPrompt.getFilename()));
+    }
+
+    /** Stores the call. Never throws: a failed write is logged and the import carries on. */
+    public void record(LlmCall call) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            JsonNode usage = call.usage();
+            repository.save(new ImportAudit(call.sourceUrl(), gzip(call.html()), promptVersion, call.model(),
+                    requestHash(call.userPrompt()), call.response(), call.parsed(), call.latency().toMillis(),
+                    tokens(usage, "input_tokens"), tokens(usage, "output_tokens"),
+                    tokens(usage, "cache_read_input_tokens"), tokens(usage, "cache_creation_input_tokens")));
+        } catch (RuntimeException e) {
+            log.warn("Could not store import audit for {}: {}", call.sourceUrl(), e.getMessage());
+        }
+    }
+
+    /** Deletes audits older than the retention. A zero or negative retention keeps them forever. */
+    @Scheduled(fixedDelayString = "${import.audit.purge-interval:PT6H}",
+            initialDelayString = "${import.audit.purge-interval:PT6H}")
+    public void purgeExpired() {
+        if (retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        try {
+            int deleted = repository.deleteCreatedBefore(Instant.now().minus(retention));
+            if (deleted > 0) {
+                log.info("Deleted {} import audits older than {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not delete expired import audits: {}", e.getMessage());
+        }
+    }
+
+    /** SHA-256 of the variable part of a prompt, hex encoded. */
+    public static String requestHash(String userPrompt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(userPrompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static byte[] gzip(String text) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String gunzip(byte[] data) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Integer tokens(JsonNode usage, String field) {
+        return usage != null && usage.path(field).canConvertToInt() ? usage.path(field).intValue() : null;
+    }
+}
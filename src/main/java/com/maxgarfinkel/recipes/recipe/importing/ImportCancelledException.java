@@ -0,0 +1,14 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+/**
+ * The client that asked for an import has gone, or the thread running it was interrupted, so
+ * the import stops. Not a failure of the import or of anything it calls: the Anthropic client
+ * lets it through without counting it against the circuit breaker, and extractors rethrow it
+ * instead of falling back.
+ */
+public class ImportCancelledException extends RuntimeException {
+
+    public ImportCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
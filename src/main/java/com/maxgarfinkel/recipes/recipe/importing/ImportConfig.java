@@ -11,7 +11,8 @@ public class ImportConfig {
     @Bean
     public CompositeRecipeExtractor compositeRecipeExtractor(
             SchemaOrgExtractor schemaOrgExtractor,
-            LlmExtractor llmExtractor) {
-        return new CompositeRecipeExtractor(List.of(schemaOrgExtractor, llmExtractor));
+            LlmExtractor llmExtractor,
+            ImportMetrics importMetrics) {
+        return new CompositeRecipeExtractor(List.of(schemaOrgExtractor, llmExtractor), importMetrics);
     }
 }
@@ -1,23 +1,42 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasDto;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/recipe/import")
 @RequiredArgsConstructor
+@Slf4j
 public class ImportController {
 
     private final ImportService importService;
+    private final ImportStreamExecutor streamExecutor;
+
+    @Value("${import.stream.timeout:PT2M}")
+    private Duration streamTimeout;
+
+    @Value("${import.images.max-pages:4}")
+    private int maxPages;
 
     @PostMapping("/preview")
     public ResponseEntity<RecipeImportDraft> preview(@RequestBody Map<String, String> body) {
@@ -29,6 +48,106 @@ public class ImportController {
         return ResponseEntity.ok(draft);
     }
 
+    /**
+     * Server-sent events version of {@link #preview}. Emits {@code name}, {@code servings},
+     * {@code method} and {@code ingredient} events as the extractor produces them, then a single
+     * {@code draft} event with the complete, resolved draft. Failures end the stream with an
+     * {@code error} event carrying a problem detail. Answers 503 when every stream worker is busy.
+     */
+    @PostMapping(path = "/preview/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> previewStream(@RequestBody Map<String, String> body) {
+        String url = body.get("url");
+        if (url == null || url.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        StreamEvents events = new StreamEvents(emitter);
+        if (!streamExecutor.trySubmit(() -> streamPreview(url, events))) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private void streamPreview(String url, StreamEvents events) {
+        try {
+            RecipeImportDraft draft = importService.streamFromUrl(url, new DraftListener() {
+                @Override
+                public void onName(String name) {
+                    events.send("name", name);
+                }
+
+                @Override
+                public void onServings(int servings) {
+                    events.send("servings", servings);
+                }
+
+                @Override
+                public void onMethod(String method) {
+                    events.send("method", method);
+                }
+
+                @Override
+                public void onIngredientLine(int index, RecipeImportDraft.ImportedIngredientLine line) {
+                    events.send("ingredient", line);
+                }
+            });
+            events.send("draft", draft);
+            events.complete();
+        } catch (ImportCancelledException e) {
+            log.debug("Import stream client disconnected: {}", url);
+        } catch (RecipeImportException e) {
+            ProblemDetail detail = ProblemDetail.forStatus(HttpStatus.UNPROCESSABLE_ENTITY);
+            detail.setDetail(e.getMessage());
+            try {
+                events.send("error", detail);
+                events.complete();
+            } catch (ImportCancelledException gone) {
+                log.debug("Import stream client disconnected before the error was sent: {}", url);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Import stream failed for {}: {}", url, e.getMessage());
+            events.completeWithError(e);
+        }
+    }
+
+    /**
+     * One stream's emitter. Once a send fails, or the emitter completes, errors or times out,
+     * the client is gone: later sends throw {@link ImportCancelledException} without touching
+     * the emitter, and completing it is a no-op.
+     */
+    private static final class StreamEvents {
+
+        private final SseEmitter emitter;
+        private volatile boolean closed;
+
+        StreamEvents(SseEmitter emitter) {
+            this.emitter = emitter;
+            emitter.onCompletion(() -> closed = true);
+            emitter.onTimeout(() -> closed = true);
+            emitter.onError(e -> closed = true);
+        }
+
+        void send(String event, Object data) {
+            if (closed) {
+                throw new ImportCancelledException("Import stream already closed", null);
+            }
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                throw new ImportCancelledException("Import stream client disconnected", e);
+            }
+        }
+
+        void complete() {
+            if (!closed) emitter.complete();
+        }
+
+        void completeWithError(Throwable e) {
+            if (!closed) emitter.completeWithError(e);
+        }
+    }
+
     @PostMapping("/preview/image")
     public ResponseEntity<RecipeImportDraft> previewFromImage(@RequestParam("image") MultipartFile image)
             throws IOException {
@@ -42,4 +161,36 @@ public class ImportController {
         RecipeImportDraft draft = importService.importFromImage(image.getBytes(), contentType);
         return ResponseEntity.ok(draft);
     }
+
+    /**
+     * Imports one recipe photographed across several pages, given in reading order. Answers 503,
+     * with the page numbers in {@code failedPages}, when the vision model couldn't be reached for
+     * some of them.
+     */
+    @PostMapping("/preview/images")
+    public ResponseEntity<RecipeImportDraft> previewFromImages(@RequestParam("images") List<MultipartFile> images)
+            throws IOException {
+        if (images.isEmpty() || images.size() > maxPages) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ImageUpload> pages = new ArrayList<>(images.size());
+        for (MultipartFile image : images) {
+            String contentType = image.getContentType();
+            if (image.isEmpty() || contentType == null || contentType.isBlank()) {
+                return ResponseEntity.badRequest().build();
+            }
+            pages.add(new ImageUpload(image.getBytes(), contentType));
+        }
+        return ResponseEntity.ok(importService.importFromImages(pages));
+    }
+
+    /**
+     * Called once an imported recipe has been saved, with the ingredient name hint of each line
+     * and the ingredient and unit it was saved as. Feeds the alias index used by later imports.
+     */
+    @PostMapping("/confirm")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void confirm(@RequestBody List<IngredientAliasDto> confirmedLines) {
+        importService.confirm(confirmedLines);
+    }
 }
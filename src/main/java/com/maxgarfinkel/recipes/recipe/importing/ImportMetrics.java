@@ -0,0 +1,187 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Meters for each stage of the import pipeline, published under {@code recipe.import.*}.
+ * Tag values are limited to small fixed sets (extractor, model, outcome) to keep the number of
+ * series bounded.
+ */
+@Component
+public class ImportMetrics {
+
+    private static final String[] TOKEN_FIELDS =
+            {"input_tokens", "output_tokens", "cache_read_input_tokens", "cache_creation_input_tokens"};
+
+    private final MeterRegistry registry;
+
+    public ImportMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordFetch(Duration elapsed, long bytes, boolean success) {
+        Timer.builder("recipe.import.fetch")
+                .description("Time to fetch a recipe page")
+                .tag("outcome", success ? "success" : "error")
+                .register(registry)
+                .record(elapsed);
+        if (success) {
+            DistributionSummary.builder("recipe.import.fetch.size")
+                    .description("Size of fetched recipe pages")
+                    .baseUnit("bytes")
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+
+    /** Time spent in one extractor; {@code hit} is true when it produced a draft. */
+    public void recordExtraction(String extractor, Duration elapsed, boolean hit) {
+        Timer.builder("recipe.import.extract")
+                .description("Time spent in each recipe extractor")
+                .tag("extractor", extractor)
+                .tag("outcome", hit ? "hit" : "miss")
+                .register(registry)
+                .record(elapsed);
+    }
+
+    /** Time to shrink an uploaded image, and its size before and after. */
+    public void recordImagePreprocessing(Duration elapsed, long originalBytes, long preparedBytes) {
+        Timer.builder("recipe.import.image.preprocess")
+                .description("Time to downscale and re-encode an uploaded image")
+                .register(registry)
+                .record(elapsed);
+        DistributionSummary.builder("recipe.import.image.size")
+                .description("Size of uploaded images before and after preprocessing")
+                .baseUnit("bytes")
+                .tag("stage", "original")
+                .register(registry)
+                .record(originalBytes);
+        DistributionSummary.builder("recipe.import.image.size")
+                .description("Size of uploaded images before and after preprocessing")
+                .baseUnit("bytes")
+                .tag("stage", "prepared")
+                .register(registry)
+                .record(preparedBytes);
+    }
+
+    /** Vision draft cache lookups; a hit saves a vision call. */
+    public void recordVisionCacheLookup(boolean hit) {
+        Counter.builder("recipe.import.vision.cache")
+                .description("Vision draft cache lookups by perceptual hash")
+                .tag("outcome", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    /** Counts finished drafts by the {@code extractionSource} that produced them. */
+    public void recordDraft(String extractionSource) {
+        Counter.builder("recipe.import.drafts")
+                .description("Recipe drafts produced, by winning extractor")
+                .tag("source", extractionSource == null ? "unknown" : extractionSource)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordLlmCall(String model, Duration elapsed, String outcome) {
+        Timer.builder("recipe.import.llm")
+                .description("Latency of Anthropic messages calls")
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(elapsed);
+    }
+
+    public void recordLlmRetry(String model, String reason) {
+        Counter.builder("recipe.import.llm.retries")
+                .description("Anthropic calls retried, by reason")
+                .tag("model", model)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordRateLimitWait(String priority, Duration waited) {
+        Timer.builder("recipe.import.llm.queue")
+                .description("Time spent waiting for an Anthropic rate-limit permit")
+                .tag("priority", priority)
+                .register(registry)
+                .record(waited);
+    }
+
+    /** Adds the counts from an Anthropic response {@code usage} block. */
+    public void recordTokenUsage(String model, JsonNode usage) {
+        for (String field : TOKEN_FIELDS) {
+            long tokens = usage.path(field).asLong(0);
+            if (tokens > 0) {
+                Counter.builder("recipe.import.llm.tokens")
+                        .description("Anthropic tokens by type")
+                        .tag("model", model)
+                        .tag("type", field.replace("_tokens", ""))
+                        .register(registry)
+                        .increment(tokens);
+            }
+        }
+        // Hit rate = hit / (hit + write + miss); "write" means this call populated the cache.
+        String cache = usage.path("cache_read_input_tokens").asLong(0) > 0 ? "hit"
+                : usage.path("cache_creation_input_tokens").asLong(0) > 0 ? "write"
+                : "miss";
+        Counter.builder("recipe.import.llm.prompt.cache")
+                .description("Anthropic calls by prompt cache outcome")
+                .tag("model", model)
+                .tag("outcome", cache)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordSchemaValidationFailure(String extractionSource) {
+        Counter.builder("recipe.import.schema.failures")
+                .description("LLM responses rejected by the extraction schema")
+                .tag("source", extractionSource)
+                .register(registry)
+                .increment();
+    }
+
+    /** {@code outcome} is {@code refined} or the reason the regex fallback was used. */
+    public void recordRefinement(String outcome) {
+        Counter.builder("recipe.import.refinement")
+                .description("Ingredient refinement results")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /** Ingredient lines resolved locally versus sent to the model for refinement. */
+    public void recordRefinementRouting(int local, int llm) {
+        Counter.builder("recipe.import.refinement.lines")
+                .description("Ingredient lines by where they were parsed")
+                .tag("route", "local")
+                .register(registry)
+                .increment(local);
+        Counter.builder("recipe.import.refinement.lines")
+                .description("Ingredient lines by where they were parsed")
+                .tag("route", "llm")
+                .register(registry)
+                .increment(llm);
+    }
+
+    /**
+     * One lookup while resolving an ingredient line. {@code target} is {@code unit} or
+     * {@code ingredient}, and {@code strategy} is {@code exact} or {@code alias}.
+     */
+    public void recordResolution(String target, String strategy, boolean hit) {
+        Counter.builder("recipe.import.resolution")
+                .description("Entity resolution lookups by strategy")
+                .tag("target", target)
+                .tag("strategy", strategy)
+                .tag("outcome", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+}
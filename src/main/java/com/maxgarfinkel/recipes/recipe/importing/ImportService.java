@@ -1,99 +1,169 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
-import com.maxgarfinkel.recipes.ingredient.IngredientAlias;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasDto;
 import com.maxgarfinkel.recipes.ingredient.IngredientAliasService;
-import com.maxgarfinkel.recipes.ingredient.IngredientDto;
-import com.maxgarfinkel.recipes.ingredient.IngredientService;
-import com.maxgarfinkel.recipes.unit.UnitDto;
-import com.maxgarfinkel.recipes.unit.UnitService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ImportService {
 
     private final UrlFetcher urlFetcher;
     private final CompositeRecipeExtractor recipeExtractor;
     private final VisionRecipeExtractor visionRecipeExtractor;
-    private final UnitService unitService;
-    private final IngredientService ingredientService;
+    private final IngredientResolver ingredientResolver;
     private final IngredientAliasService ingredientAliasService;
+    private final ImportMetrics metrics;
 
     public RecipeImportDraft importFromImage(byte[] imageBytes, String mediaType) {
-        RecipeImportDraft draft = visionRecipeExtractor.extract(imageBytes, mediaType)
+        RecipeImportDraft draft = extractImage(imageBytes, mediaType, AnthropicRateLimiter.Priority.INTERACTIVE)
                 .orElseThrow(() -> new RecipeImportException("Could not extract recipe from image"));
+        metrics.recordDraft(draft.getExtractionSource());
         resolveEntities(draft);
         return draft;
     }
 
+    /**
+     * Imports a recipe photographed across several pages. Each page goes to the vision model on
+     * its own virtual thread, so the wait is roughly that of the slowest page; concurrency across
+     * all requests is still capped by the vision bulkhead in {@link AnthropicClient}. The caller is
+     * waiting on the preview, so the pages queue for the rate limit as interactive calls alongside
+     * single imports rather than behind them. Pages the model reads but finds no recipe on are
+     * skipped, and the rest are merged
+     * in upload order. If any page's call fails outright the import fails with
+     * {@link ImagePagesUnavailableException} naming those pages, rather than returning a recipe
+     * with them silently missing.
+     */
+    public RecipeImportDraft importFromImages(List<ImageUpload> pages) {
+        List<Future<Optional<RecipeImportDraft>>> futures = new ArrayList<>(pages.size());
+        List<RecipeImportDraft> drafts = new ArrayList<>(pages.size());
+        List<Integer> failedPages = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (ImageUpload page : pages) {
+                futures.add(executor.submit(() -> timedImageExtraction(() -> visionRecipeExtractor.extractPage(
+                        page.data(), page.mediaType(), AnthropicRateLimiter.Priority.INTERACTIVE))));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Optional<RecipeImportDraft> page = futures.get(i).get();
+                    if (page.isPresent()) {
+                        drafts.add(page.get());
+                    } else {
+                        log.warn("No recipe found on page {} of {}, merging the rest.", i + 1, pages.size());
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ImportCancelledException cancelled) {
+                        throw cancelled;
+                    }
+                    if (!(e.getCause() instanceof AnthropicApiException)) {
+                        throw new RecipeImportException("Could not extract recipe from images: " + e.getCause().getMessage());
+                    }
+                    log.warn("Vision call for page {} of {} failed: {}", i + 1, pages.size(), e.getCause().getMessage());
+                    failedPages.add(i + 1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RecipeImportException("Image import was interrupted");
+        }
+        if (!failedPages.isEmpty()) {
+            throw new ImagePagesUnavailableException(failedPages, pages.size());
+        }
+        if (drafts.isEmpty()) {
+            throw new RecipeImportException("Could not extract recipe from images");
+        }
+        RecipeImportDraft draft = DraftMerger.merge(drafts);
+        metrics.recordDraft(draft.getExtractionSource());
+        resolveEntities(draft);
+        return draft;
+    }
+
+    private Optional<RecipeImportDraft> extractImage(byte[] imageBytes, String mediaType,
+                                                     AnthropicRateLimiter.Priority priority) {
+        return timedImageExtraction(() -> visionRecipeExtractor.extract(imageBytes, mediaType, priority));
+    }
+
+    private Optional<RecipeImportDraft> timedImageExtraction(Supplier<Optional<RecipeImportDraft>> extraction) {
+        long start = System.nanoTime();
+        boolean extracted = false;
+        try {
+            Optional<RecipeImportDraft> draft = extraction.get();
+            extracted = draft.isPresent();
+            return draft;
+        } finally {
+            metrics.recordExtraction(VisionRecipeExtractor.class.getSimpleName(),
+                    Duration.ofNanos(System.nanoTime() - start), extracted);
+        }
+    }
+
     public RecipeImportDraft importFromUrl(String url) {
         String html = urlFetcher.fetch(url);
         RecipeImportDraft draft = recipeExtractor.extract(html, url)
                 .orElseThrow(() -> new RecipeImportException("Could not extract recipe from: " + url));
+        metrics.recordDraft(draft.getExtractionSource());
         resolveEntities(draft);
         return draft;
     }
 
-    private void resolveEntities(RecipeImportDraft draft) {
-        List<UnitDto> allUnits = unitService.getUnitsAsDtos();
-        List<IngredientDto> allIngredients = ingredientService.getAllAsDto();
-        List<IngredientAlias> allAliases = ingredientAliasService.findAll();
-
-        if (draft.getIngredientLines() == null) return;
-
-        for (RecipeImportDraft.ImportedIngredientLine line : draft.getIngredientLines()) {
-            if (line.getQuantity() == null) continue;
-            if (line.getUnitNameHint() == null || line.getIngredientNameHint() == null) continue;
-
-            UnitDto resolvedUnit = resolveUnit(line.getUnitNameHint(), allUnits);
-            IngredientDto resolvedIngredient = resolveIngredient(line.getIngredientNameHint(), allIngredients);
-
-            if (resolvedUnit == null || resolvedIngredient == null) {
-                IngredientAlias alias = resolveAlias(line.getIngredientNameHint(), allAliases);
-                if (alias != null) {
-                    resolvedIngredient = alias.getIngredient().toDto();
-                    resolvedUnit = alias.getUnit().toDto();
-                }
+    /**
+     * Imports from a URL like {@link #importFromUrl}, reporting the name, servings, method and
+     * each ingredient line to {@code listener} as soon as the extractor produces them. Streamed
+     * lines are resolved against the catalogue before they are passed on. The returned draft is
+     * the validated, fully resolved one and supersedes anything streamed.
+     */
+    public RecipeImportDraft streamFromUrl(String url, DraftListener listener) {
+        String html = urlFetcher.fetch(url);
+        DraftListener resolving = new DraftListener() {
+            @Override
+            public void onName(String name) {
+                listener.onName(name);
             }
 
-            if (resolvedUnit != null) {
-                // Always store the resolved unit — even when the ingredient is new/unknown —
-                // so the frontend can pre-select it in the NewIngredientModal.
-                line.setResolvedUnit(resolvedUnit);
+            @Override
+            public void onServings(int servings) {
+                listener.onServings(servings);
             }
-            if (resolvedUnit != null && resolvedIngredient != null) {
-                // Only store a resolved ingredient when the unit is also resolved; a line
-                // with a known ingredient but no unit would silently fall out of both the
-                // auto-resolved list and the unresolved (manual) list in the UI.
-                line.setResolvedIngredient(resolvedIngredient);
+
+            @Override
+            public void onMethod(String method) {
+                listener.onMethod(method);
             }
-        }
-    }
 
-    private UnitDto resolveUnit(String hint, List<UnitDto> allUnits) {
-        String normalised = IngredientLineParser.normaliseUnitHint(hint);
-        return allUnits.stream()
-                .filter(u -> u.getName().equalsIgnoreCase(normalised)
-                        || (u.getAbbreviation() != null && u.getAbbreviation().equalsIgnoreCase(normalised)))
-                .findFirst()
-                .orElse(null);
+            @Override
+            public void onIngredientLine(int index, RecipeImportDraft.ImportedIngredientLine line) {
+                ingredientResolver.resolve(line);
+                listener.onIngredientLine(index, line);
+            }
+        };
+        RecipeImportDraft draft = recipeExtractor.extract(html, url, resolving)
+                .orElseThrow(() -> new RecipeImportException("Could not extract recipe from: " + url));
+        metrics.recordDraft(draft.getExtractionSource());
+        resolveEntities(draft);
+        return draft;
     }
 
-    private IngredientDto resolveIngredient(String hint, List<IngredientDto> allIngredients) {
-        return allIngredients.stream()
-                .filter(i -> i.getName().equalsIgnoreCase(hint))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Records the ingredient and unit each line of an imported recipe was saved with, so the
+     * next import that meets the same ingredient name resolves it without asking the model.
+     */
+    public void confirm(List<IngredientAliasDto> confirmedLines) {
+        ingredientAliasService.confirm(confirmedLines);
     }
 
-    private IngredientAlias resolveAlias(String hint, List<IngredientAlias> allAliases) {
-        String normalised = IngredientAliasService.normalise(hint);
-        return allAliases.stream()
-                .filter(a -> a.getAliasText().equals(normalised))
-                .findFirst()
-                .orElse(null);
+    void resolveEntities(RecipeImportDraft draft) {
+        ingredientResolver.resolve(draft);
     }
 }
@@ -0,0 +1,44 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@code /preview/stream} imports off the request thread. The pool is bounded and has no
+ * queue, so a burst of streams beyond {@code import.stream.max-concurrent} is turned away rather
+ * than piling up in-flight extractions. Each task carries the request's observation context, so
+ * its spans stay in the request's trace.
+ */
+@Component
+public class ImportStreamExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public ImportStreamExecutor(@Value("${import.stream.max-concurrent:16}") int maxConcurrent) {
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("import-stream-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.initialize();
+    }
+
+    /** @return {@code false}, without running the task, when every worker is busy */
+    public boolean trySubmit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,160 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.maxgarfinkel.recipes.CatalogueVersion;
+import com.maxgarfinkel.recipes.ingredient.AliasTarget;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasService;
+import com.maxgarfinkel.recipes.ingredient.IngredientDto;
+import com.maxgarfinkel.recipes.ingredient.IngredientService;
+import com.maxgarfinkel.recipes.unit.UnitDto;
+import com.maxgarfinkel.recipes.unit.UnitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Matches ingredient lines against the catalogue: units by name or abbreviation, ingredients by
+ * exact name, then the ingredient name hint through the alias index. The lookup maps are built
+ * once per catalogue version, so resolving a line costs a few hash lookups whatever the size of
+ * the catalogue.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngredientResolver {
+
+    private final UnitService unitService;
+    private final IngredientService ingredientService;
+    private final IngredientAliasService ingredientAliasService;
+    private final CatalogueVersion catalogueVersion;
+    private final ImportMetrics metrics;
+
+    private volatile Catalogue cachedCatalogue;
+
+    /**
+     * How sure the local match is, from 0 to 1. Lines missing a quantity, unit or name score 0;
+     * both unit and ingredient found by exact name score 1; an alias scores more the more
+     * confirmed imports back it; a partial match scores in between.
+     */
+    public double confidence(RecipeImportDraft.ImportedIngredientLine line) {
+        Match match = match(line, catalogue());
+        if (match == null) return 0.0;
+        if (match.alias() != null) {
+            return Math.min(1.0, 0.7 + 0.1 * match.alias().confirmedCount());
+        }
+        if (match.unit() != null && match.ingredient() != null) return 1.0;
+        if (match.unit() != null || match.ingredient() != null) return 0.5;
+        return 0.25;
+    }
+
+    /** Sets the resolved unit and ingredient on each line that matches, recording each lookup. */
+    public void resolve(RecipeImportDraft draft) {
+        if (draft.getIngredientLines() == null) return;
+        Catalogue catalogue = catalogue();
+        for (RecipeImportDraft.ImportedIngredientLine line : draft.getIngredientLines()) {
+            resolve(line, catalogue);
+        }
+    }
+
+    public void resolve(RecipeImportDraft.ImportedIngredientLine line) {
+        resolve(line, catalogue());
+    }
+
+    private void resolve(RecipeImportDraft.ImportedIngredientLine line, Catalogue catalogue) {
+        Match match = match(line, catalogue);
+        if (match == null) return;
+
+        metrics.recordResolution("unit", "exact", match.exactUnit() != null);
+        metrics.recordResolution("ingredient", "exact", match.exactIngredient() != null);
+        if (match.exactUnit() == null || match.exactIngredient() == null) {
+            metrics.recordResolution("ingredient", "alias", match.alias() != null);
+        }
+
+        if (match.unit() != null) {
+            // Always store the resolved unit — even when the ingredient is new/unknown —
+            // so the frontend can pre-select it in the NewIngredientModal.
+            line.setResolvedUnit(match.unit());
+        }
+        if (match.unit() != null && match.ingredient() != null) {
+            // Only store a resolved ingredient when the unit is also resolved; a line
+            // with a known ingredient but no unit would silently fall out of both the
+            // auto-resolved list and the unresolved (manual) list in the UI.
+            line.setResolvedIngredient(match.ingredient());
+        }
+    }
+
+    /** {@code null} when the line lacks the quantity, unit or name needed to resolve it. */
+    private Match match(RecipeImportDraft.ImportedIngredientLine line, Catalogue catalogue) {
+        if (line.getQuantity() == null) return null;
+        if (line.getUnitNameHint() == null || line.getIngredientNameHint() == null) return null;
+
+        UnitDto exactUnit = catalogue.unitsByName().get(key(IngredientLineParser.normaliseUnitHint(line.getUnitNameHint())));
+        IngredientDto exactIngredient = catalogue.ingredientsByName().get(key(line.getIngredientNameHint()));
+        if (exactUnit != null && exactIngredient != null) {
+            return new Match(exactUnit, exactIngredient, exactUnit, exactIngredient, null);
+        }
+
+        Optional<AliasTarget> target = ingredientAliasService.findTarget(line.getIngredientNameHint());
+        IngredientDto aliasIngredient = target.map(t -> catalogue.ingredientsById().get(t.ingredientId())).orElse(null);
+        UnitDto aliasUnit = target.map(t -> catalogue.unitsById().get(t.unitId())).orElse(null);
+        // The alias only fills gaps: a unit or ingredient that matched by name is kept as written.
+        UnitDto unit = exactUnit != null ? exactUnit : aliasUnit;
+        IngredientDto ingredient = exactIngredient != null ? exactIngredient : aliasIngredient;
+        if (aliasIngredient != null && unit != null) {
+            return new Match(exactUnit, exactIngredient, unit, ingredient, target.get());
+        }
+        return new Match(exactUnit, exactIngredient, exactUnit, exactIngredient, null);
+    }
+
+    /**
+     * The lookup maps for the current catalogue version. The version is read before loading, so
+     * a write racing with the build just causes a rebuild on the next call. Where two entries
+     * share a key the first one listed wins, as the list scans this replaced did.
+     */
+    private Catalogue catalogue() {
+        long version = catalogueVersion.current();
+        Catalogue cached = cachedCatalogue;
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        Map<String, UnitDto> unitsByName = new HashMap<>();
+        Map<Long, UnitDto> unitsById = new HashMap<>();
+        for (UnitDto unit : unitService.getUnitsAsDtos()) {
+            unitsByName.putIfAbsent(key(unit.getName()), unit);
+            if (unit.getAbbreviation() != null) {
+                unitsByName.putIfAbsent(key(unit.getAbbreviation()), unit);
+            }
+            unitsById.putIfAbsent(unit.getId(), unit);
+        }
+        Map<String, IngredientDto> ingredientsByName = new HashMap<>();
+        Map<Long, IngredientDto> ingredientsById = new HashMap<>();
+        for (IngredientDto ingredient : ingredientService.getAllAsDto()) {
+            ingredientsByName.putIfAbsent(key(ingredient.getName()), ingredient);
+            ingredientsById.putIfAbsent(ingredient.getId(), ingredient);
+        }
+        Catalogue catalogue = new Catalogue(version, unitsByName, unitsById, ingredientsByName, ingredientsById);
+        cachedCatalogue = catalogue;
+        return catalogue;
+    }
+
+    private static String key(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * {@code unit} and {@code ingredient} are what the line resolves to; the exact fields say
+     * what the name lookups found on their own, for the metrics.
+     */
+    private record Match(UnitDto exactUnit, IngredientDto exactIngredient,
+                         UnitDto unit, IngredientDto ingredient, AliasTarget alias) {
+    }
+
+    private record Catalogue(long version,
+                             Map<String, UnitDto> unitsByName,
+                             Map<Long, UnitDto> unitsById,
+                             Map<String, IngredientDto> ingredientsByName,
+                             Map<Long, IngredientDto> ingredientsById) {
+    }
+}
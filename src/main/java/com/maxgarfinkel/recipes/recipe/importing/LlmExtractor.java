@@ -1,5 +1,6 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.jsoup.Jsoup;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -7,6 +8,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -14,55 +16,134 @@ import java.util.Optional;
 @Component
 @Order(2)
 @Slf4j
-public class LlmExtractor implements RecipeExtractor {
+public class LlmExtractor implements StreamingRecipeExtractor {
 
     private static final int MAX_TEXT_LENGTH = 8000;
 
     private final AnthropicClient anthropicClient;
     private final RecipeImportDraftParser parser;
     private final PromptBuilder promptBuilder;
+    private final StructuredOutput structuredOutput;
+    private final ImportAuditService importAudit;
     private final String model;
     private final String promptTemplate;
 
     public LlmExtractor(AnthropicClient anthropicClient,
                         RecipeImportDraftParser parser,
                         PromptBuilder promptBuilder,
+                        StructuredOutput structuredOutput,
+                        ImportAuditService importAudit,
                         @Value("${anthropic.llm-model:claude-haiku-4-5-20251001}") String model,
                         @Qualifier("llmExtractionPrompt") String promptTemplate) {
         this.anthropicClient = anthropicClient;
         this.parser = parser;
         this.promptBuilder = promptBuilder;
+        this.structuredOutput = structuredOutput;
+        this.importAudit = importAudit;
         this.model = model;
         this.promptTemplate = promptTemplate;
     }
 
     @Override
     public Optional<RecipeImportDraft> extract(String html, String sourceUrl) {
+        return extract(html, sourceUrl, AnthropicRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /** As {@link #extract(String, String)}, queueing for the rate limit at the given priority. */
+    public Optional<RecipeImportDraft> extract(String html, String sourceUrl, AnthropicRateLimiter.Priority priority) {
         if (!anthropicClient.isConfigured()) {
             return Optional.empty();
         }
 
+        PromptBuilder.Prompt prompt = prompt(html);
+        long start = System.nanoTime();
+        String answer = null;
+        JsonNode usage = null;
+        boolean parsed = false;
         try {
-            String text = extractReadableText(html);
-            Map<String, Object> requestBody = Map.of(
-                    "model", model,
-                    "max_tokens", 2048,
-                    "messages", List.of(Map.of("role", "user", "content", promptBuilder.buildTextPrompt(promptTemplate, text)))
-            );
-            String content = anthropicClient.sendMessages(requestBody)
-                    .path("content").path(0).path("text").asText();
-            return Optional.of(parser.parse(content, sourceUrl, "LLM"));
+            JsonNode response = anthropicClient.sendMessages(requestBody(prompt), AnthropicClient.Lane.TEXT, priority);
+            usage = response.path("usage");
+            Optional<JsonNode> toolInput = StructuredOutput.toolInput(response, StructuredOutput.RECIPE_TOOL);
+            answer = toolInput.map(JsonNode::toString).orElseGet(() -> StructuredOutput.text(response));
+            RecipeImportDraft draft = toolInput.isPresent()
+                    ? parser.parse(toolInput.get(), sourceUrl, "LLM")
+                    : parser.parse(answer, sourceUrl, "LLM");
+            parsed = true;
+            return Optional.of(draft);
         } catch (RecipeSchemaValidationException e) {
             return Optional.empty(); // already logged by parser
+        } catch (ImportCancelledException e) {
+            throw e;
         } catch (AnthropicApiException e) {
             log.warn("LLM extraction failed: {}", e.getMessage());
             return Optional.empty();
         } catch (Exception e) {
             log.warn("LLM extraction failed due to unexpected error: {}", e.getMessage());
             return Optional.empty();
+        } finally {
+            audit(html, sourceUrl, prompt, answer, parsed, start, usage);
+        }
+    }
+
+    /**
+     * Streams the response and reports fields to {@code listener} as the model writes them. The
+     * returned draft is parsed and validated from the full text, exactly as {@link #extract(String, String)}.
+     * If the listener throws {@link ImportCancelledException} the call stops and it propagates.
+     */
+    @Override
+    public Optional<RecipeImportDraft> extract(String html, String sourceUrl, DraftListener listener) {
+        if (!anthropicClient.isConfigured()) {
+            return Optional.empty();
+        }
+
+        PromptBuilder.Prompt prompt = prompt(html);
+        long start = System.nanoTime();
+        String content = null;
+        boolean parsed = false;
+        try {
+            StreamingDraftParser preview = new StreamingDraftParser(listener);
+            content = anthropicClient.streamMessages(requestBody(prompt), AnthropicClient.Lane.TEXT, preview::feed);
+            RecipeImportDraft draft = parser.parse(content, sourceUrl, "LLM");
+            parsed = true;
+            return Optional.of(draft);
+        } catch (RecipeSchemaValidationException e) {
+            return Optional.empty(); // already logged by parser
+        } catch (ImportCancelledException e) {
+            throw e;
+        } catch (AnthropicApiException e) {
+            log.warn("Streaming LLM extraction failed: {}", e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("Streaming LLM extraction failed due to unexpected error: {}", e.getMessage());
+            return Optional.empty();
+        } finally {
+            // Usage is spread across the stream's events and only reaches the metrics.
+            audit(html, sourceUrl, prompt, content, parsed, start, null);
+        }
+    }
+
+    /** Records calls that got an answer; failed calls have nothing to replay. */
+    private void audit(String html, String sourceUrl, PromptBuilder.Prompt prompt, String answer,
+                       boolean parsed, long start, JsonNode usage) {
+        if (answer != null) {
+            importAudit.record(new ImportAuditService.LlmCall(sourceUrl, html, model, prompt.user(), answer,
+                    parsed, Duration.ofNanos(System.nanoTime() - start), usage));
         }
     }
 
+    private PromptBuilder.Prompt prompt(String html) {
+        return promptBuilder.buildTextPrompt(promptTemplate, extractReadableText(html));
+    }
+
+    private Map<String, Object> requestBody(PromptBuilder.Prompt prompt) {
+        return structuredOutput.forRecipe(Map.of(
+                "model", model,
+                "max_tokens", 2048,
+                "system", PromptBuilder.cachedSystem(prompt.system()),
+                "messages", List.of(Map.of("role", "user", "content", prompt.user()))
+        ));
+    }
+
     private String extractReadableText(String html) {
         String text = Jsoup.parse(html).text();
         return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
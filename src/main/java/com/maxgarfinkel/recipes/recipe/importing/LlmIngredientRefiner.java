@@ -19,12 +19,16 @@ public class LlmIngredientRefiner {
     private final AnthropicClient anthropicClient;
     private final ObjectMapper objectMapper;
     private final PromptBuilder promptBuilder;
+    private final StructuredOutput structuredOutput;
     private final String model;
     private final String promptTemplate;
+    private final ImportMetrics metrics;
 
     public LlmIngredientRefiner(AnthropicClient anthropicClient,
                                 ObjectMapper objectMapper,
                                 PromptBuilder promptBuilder,
+                                ImportMetrics metrics,
+                                StructuredOutput structuredOutput,
                                 @Value("${anthropic.llm-model:claude-haiku-4-5-20251001}") String model,
                                 @Qualifier("ingredientRefinementPrompt") String promptTemplate) {
         this.anthropicClient = anthropicClient;
@@ -32,42 +36,63 @@ public class LlmIngredientRefiner {
         this.promptBuilder = promptBuilder;
         this.model = model;
         this.promptTemplate = promptTemplate;
+        this.metrics = metrics;
+        this.structuredOutput = structuredOutput;
     }
 
     /**
      * Asks the LLM to parse a list of raw ingredient strings into structured lines.
      * Returns {@code Optional.empty()} if the LLM is not configured, the list is empty,
      * or any error occurs — callers should fall back to {@link IngredientLineParser}.
+     * Queues as an interactive call, since the import preview waits on it.
      */
     public Optional<List<RecipeImportDraft.ImportedIngredientLine>> refine(List<String> rawIngredients) {
+        return refine(rawIngredients, AnthropicRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /**
+     * As {@link #refine(List)}, queueing for the rate limit at {@code priority}. Only callers
+     * nobody is waiting on, such as offline replays, should pass {@code BULK}.
+     */
+    public Optional<List<RecipeImportDraft.ImportedIngredientLine>> refine(List<String> rawIngredients,
+                                                                          AnthropicRateLimiter.Priority priority) {
         if (!anthropicClient.isConfigured() || rawIngredients.isEmpty()) {
             return Optional.empty();
         }
 
         try {
             String ingredientsJson = objectMapper.writeValueAsString(rawIngredients);
-            String prompt = promptBuilder.buildIngredientPrompt(promptTemplate, ingredientsJson);
-            Map<String, Object> requestBody = Map.of(
+            PromptBuilder.Prompt prompt = promptBuilder.buildIngredientPrompt(promptTemplate, ingredientsJson);
+            Map<String, Object> requestBody = structuredOutput.forIngredients(Map.of(
                     "model", model,
                     "max_tokens", 1024,
-                    "messages", List.of(Map.of("role", "user", "content", prompt))
-            );
+                    "system", PromptBuilder.cachedSystem(prompt.system()),
+                    "messages", List.of(Map.of("role", "user", "content", prompt.user()))
+            ));
 
-            String content = anthropicClient.sendMessages(requestBody)
-                    .path("content").path(0).path("text").asText();
-            if (content.isBlank()) {
-                log.warn("Ingredient refinement returned empty content from LLM.");
-                return Optional.empty();
+            JsonNode response = anthropicClient.sendMessages(requestBody, AnthropicClient.Lane.TEXT, priority);
+            Optional<JsonNode> toolInput = StructuredOutput.toolInput(response, StructuredOutput.INGREDIENTS_TOOL);
+            JsonNode array;
+            if (toolInput.isPresent()) {
+                array = toolInput.get().path("ingredients");
+            } else {
+                String content = StructuredOutput.text(response);
+                if (content.isBlank()) {
+                    log.warn("Ingredient refinement returned empty content from LLM.");
+                    metrics.recordRefinement("empty_response");
+                    return Optional.empty();
+                }
+                array = objectMapper.readTree(content);
             }
-
-            JsonNode array = objectMapper.readTree(stripMarkdownFences(content));
             if (!array.isArray()) {
                 log.warn("Ingredient refinement response was not a JSON array.");
+                metrics.recordRefinement("invalid_response");
                 return Optional.empty();
             }
             if (array.size() != rawIngredients.size()) {
                 log.warn("Ingredient refinement returned {} items for {} inputs — ignoring.",
                         array.size(), rawIngredients.size());
+                metrics.recordRefinement("count_mismatch");
                 return Optional.empty();
             }
 
@@ -83,28 +108,19 @@ public class LlmIngredientRefiner {
                 line.setIngredientNameHint(name.isNull() || name.isMissingNode() ? null : name.asText(null));
                 lines.add(line);
             }
+            metrics.recordRefinement("refined");
             return Optional.of(lines);
 
+        } catch (ImportCancelledException e) {
+            throw e;
         } catch (AnthropicApiException e) {
             log.warn("Ingredient refinement failed: {}", e.getMessage());
+            metrics.recordRefinement("api_error");
             return Optional.empty();
         } catch (Exception e) {
             log.warn("Ingredient refinement failed due to unexpected error: {}", e.getMessage());
+            metrics.recordRefinement("error");
             return Optional.empty();
         }
     }
-
-    private static String stripMarkdownFences(String text) {
-        String trimmed = text.trim();
-        if (trimmed.startsWith("```")) {
-            int firstNewline = trimmed.indexOf('\n');
-            if (firstNewline != -1) {
-                trimmed = trimmed.substring(firstNewline + 1);
-            }
-            if (trimmed.endsWith("```")) {
-                trimmed = trimmed.substring(0, trimmed.lastIndexOf("```")).trim();
-            }
-        }
-        return trimmed;
-    }
 }
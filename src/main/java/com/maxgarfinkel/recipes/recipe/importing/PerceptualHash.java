@@ -0,0 +1,103 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 64-bit difference hash (dHash). The image is reduced to a 9x8 grid of mean luminance and each
+ * bit records whether a cell is brighter than its right-hand neighbour. Rescaling, recompression
+ * and small exposure changes leave most bits alone, so near-duplicate photos end up a few bits
+ * apart while unrelated images differ in about half of them.
+ *
+ * <p>At 64 bits two pages of text with the same layout often hash alike, so {@link #detailHash}
+ * gives a 1984-bit version on a 32x32 grid, comparing each cell with both its right-hand and its
+ * lower neighbour, to confirm a match. A photo and a resized, recompressed copy of it differ in
+ * about 5% of those bits; different pages set in the same layout differ in about 20%.
+ */
+final class PerceptualHash {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+    private static final int DETAIL_GRID = 32;
+
+    /** Bits in a {@link #detailHash}: a horizontal and a vertical comparison per adjacent pair. */
+    static final int DETAIL_BITS = 2 * DETAIL_GRID * (DETAIL_GRID - 1);
+
+    private PerceptualHash() {
+    }
+
+    static long dHash(BufferedImage image) {
+        double[][] luminance = luminanceGrid(image, COLUMNS, ROWS);
+        long hash = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                hash <<= 1;
+                if (luminance[row][column] > luminance[row][column + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    static long[] detailHash(BufferedImage image) {
+        double[][] luminance = luminanceGrid(image, DETAIL_GRID, DETAIL_GRID);
+        long[] hash = new long[(DETAIL_BITS + 63) / 64];
+        int bit = 0;
+        for (int row = 0; row < DETAIL_GRID; row++) {
+            for (int column = 0; column < DETAIL_GRID - 1; column++, bit++) {
+                if (luminance[row][column] > luminance[row][column + 1]) {
+                    hash[bit / 64] |= 1L << (bit % 64);
+                }
+            }
+        }
+        for (int column = 0; column < DETAIL_GRID; column++) {
+            for (int row = 0; row < DETAIL_GRID - 1; row++, bit++) {
+                if (luminance[row][column] > luminance[row + 1][column]) {
+                    hash[bit / 64] |= 1L << (bit % 64);
+                }
+            }
+        }
+        return hash;
+    }
+
+    static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    static int distance(long[] a, long[] b) {
+        int distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            distance += Long.bitCount(a[i] ^ b[i]);
+        }
+        return distance;
+    }
+
+    private static double[][] luminanceGrid(BufferedImage image, int columns, int rows) {
+        double[][] luminance = new double[rows][columns];
+        int width = image.getWidth();
+        int height = image.getHeight();
+        for (int row = 0; row < rows; row++) {
+            int y0 = row * height / rows;
+            int y1 = Math.max(y0 + 1, (row + 1) * height / rows);
+            for (int column = 0; column < columns; column++) {
+                int x0 = column * width / columns;
+                int x1 = Math.max(x0 + 1, (column + 1) * width / columns);
+                luminance[row][column] = meanLuminance(image, x0, Math.min(x1, width), y0, Math.min(y1, height));
+            }
+        }
+        return luminance;
+    }
+
+    private static double meanLuminance(BufferedImage image, int x0, int x1, int y0, int y1) {
+        long sum = 0;
+        int[] row = new int[x1 - x0];
+        for (int y = y0; y < y1; y++) {
+            image.getRGB(x0, y, row.length, 1, row, 0, row.length);
+            for (int rgb : row) {
+                // Integer Rec. 601 luma, weights scaled by 1000
+                sum += 299L * ((rgb >> 16) & 0xFF) + 587L * ((rgb >> 8) & 0xFF) + 114L * (rgb & 0xFF);
+            }
+        }
+        return (double) sum / ((long) (x1 - x0) * (y1 - y0));
+    }
+}
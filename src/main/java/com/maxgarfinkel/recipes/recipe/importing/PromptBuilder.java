@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -17,23 +18,50 @@ public class PromptBuilder {
     private final UnitService unitService;
     private final IngredientService ingredientService;
 
-    /** For the LLM flow: substitutes {context} and {text}. */
-    public String buildTextPrompt(String template, String text) {
-        return template
-                .replace("{context}", buildContext())
-                .replace("{text}", text);
+    /**
+     * A prompt split for prompt caching: {@code system} is the stable prefix (instructions and
+     * catalogue context) and {@code user} is the part that changes with every request.
+     */
+    public record Prompt(String system, String user) {
     }
 
-    /** For the vision flow: substitutes {context} only. */
+    /**
+     * For the LLM flow: substitutes {context}, then splits the template at {text}. Everything
+     * before the placeholder becomes the cached system prefix.
+     */
+    public Prompt buildTextPrompt(String template, String text) {
+        return split(template.replace("{context}", buildContext()), "{text}", text);
+    }
+
+    /** For the vision flow: substitutes {context}. The whole prompt is static; only the image varies. */
     public String buildImagePrompt(String template) {
         return template.replace("{context}", buildContext());
     }
 
-    /** For the ingredient refinement flow: substitutes {context} and {ingredients}. */
-    public String buildIngredientPrompt(String template, String ingredientsJson) {
-        return template
-                .replace("{context}", buildContext())
-                .replace("{ingredients}", ingredientsJson);
+    /** For the ingredient refinement flow: substitutes {context}, then splits at {ingredients}. */
+    public Prompt buildIngredientPrompt(String template, String ingredientsJson) {
+        return split(template.replace("{context}", buildContext()), "{ingredients}", ingredientsJson);
+    }
+
+    /**
+     * The {@code system} value for a messages request: one text block marked as a cache
+     * breakpoint, so the tools and this prefix are cached together. Prefixes shorter than the
+     * model's minimum cacheable length are simply sent uncached.
+     */
+    public static List<Map<String, Object>> cachedSystem(String system) {
+        return List.of(Map.of(
+                "type", "text",
+                "text", system,
+                "cache_control", Map.of("type", "ephemeral")));
+    }
+
+    private static Prompt split(String template, String placeholder, String value) {
+        int at = template.indexOf(placeholder);
+        if (at < 0) {
+            return new Prompt(template.strip(), value);
+        }
+        String user = value + template.substring(at + placeholder.length());
+        return new Prompt(template.substring(0, at).strip(), user.strip());
     }
 
     private String buildContext() {
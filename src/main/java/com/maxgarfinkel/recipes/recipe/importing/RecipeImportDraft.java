@@ -4,6 +4,7 @@ import com.maxgarfinkel.recipes.ingredient.IngredientDto;
 import com.maxgarfinkel.recipes.unit.UnitDto;
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -16,6 +17,20 @@ public class RecipeImportDraft {
     private String extractionSource;
     private List<ImportedIngredientLine> ingredientLines;
 
+    /** A copy whose ingredient lines can be resolved or edited without touching this draft. */
+    public RecipeImportDraft copy() {
+        RecipeImportDraft copy = new RecipeImportDraft();
+        copy.setName(name);
+        copy.setServings(servings);
+        copy.setMethod(method);
+        copy.setSourceUrl(sourceUrl);
+        copy.setExtractionSource(extractionSource);
+        if (ingredientLines != null) {
+            copy.setIngredientLines(new ArrayList<>(ingredientLines.stream().map(ImportedIngredientLine::copy).toList()));
+        }
+        return copy;
+    }
+
     @Data
     public static class ImportedIngredientLine {
         private String rawText;
@@ -24,5 +39,16 @@ public class RecipeImportDraft {
         private String unitNameHint;
         private IngredientDto resolvedIngredient;
         private UnitDto resolvedUnit;
+
+        public ImportedIngredientLine copy() {
+            ImportedIngredientLine copy = new ImportedIngredientLine();
+            copy.setRawText(rawText);
+            copy.setQuantity(quantity);
+            copy.setIngredientNameHint(ingredientNameHint);
+            copy.setUnitNameHint(unitNameHint);
+            copy.setResolvedIngredient(resolvedIngredient);
+            copy.setResolvedUnit(resolvedUnit);
+            return copy;
+        }
     }
 }
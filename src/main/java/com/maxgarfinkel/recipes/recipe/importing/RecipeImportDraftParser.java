@@ -1,92 +1,202 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
-import com.networknt.schema.SpecVersion;
-import com.networknt.schema.ValidationMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Binds an extraction response to a {@link RecipeImportDraft} in a single streaming pass,
+ * checking the constraints of {@code schema/recipe-extraction-schema.json} as it goes: required
+ * {@code name} and {@code ingredients}, a non-empty {@code name}, the field types, and a
+ * non-empty {@code rawText} on every ingredient line. Unknown fields are skipped. Violations are
+ * collected rather than failing on the first one, and are worded like the JSON Schema validator
+ * this replaces ({@code $.ingredients[0].rawText: must be at least 1 characters long}).
+ *
+ * <p>The schema file remains the contract given to the model; keep the two in step.
+ */
 @Component
 @Slf4j
 public class RecipeImportDraftParser {
 
     private final ObjectMapper objectMapper;
-    private final JsonSchema schema;
+    private final ImportMetrics metrics;
 
-    public RecipeImportDraftParser(ObjectMapper objectMapper) {
+    public RecipeImportDraftParser(ObjectMapper objectMapper, ImportMetrics metrics) {
         this.objectMapper = objectMapper;
-        try (InputStream stream = getClass().getResourceAsStream("/schema/recipe-extraction-schema.json")) {
-            this.schema = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7).getSchema(stream);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to load recipe extraction JSON schema", e);
-        }
+        this.metrics = metrics;
     }
 
     public RecipeImportDraft parse(String json, String sourceUrl, String extractionSource) throws Exception {
-        String cleaned = stripMarkdownFences(json);
-        JsonNode root = objectMapper.readTree(cleaned);
+        try (JsonParser parser = objectMapper.getFactory().createParser(StructuredOutput.stripMarkdownFences(json))) {
+            return parse(parser, sourceUrl, extractionSource);
+        }
+    }
+
+    /** Binds the {@code input} of a {@code tool_use} block, which is already a JSON object. */
+    public RecipeImportDraft parse(JsonNode json, String sourceUrl, String extractionSource) throws Exception {
+        try (JsonParser parser = json.traverse(objectMapper)) {
+            return parse(parser, sourceUrl, extractionSource);
+        }
+    }
+
+    private RecipeImportDraft parse(JsonParser parser, String sourceUrl, String extractionSource) throws IOException {
+        RecipeImportDraft draft = new RecipeImportDraft();
+        List<String> errors = new ArrayList<>();
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            bindRecipe(parser, draft, errors);
+        } else {
+            errors.add("$: " + typeName(token) + " found, object expected");
+        }
 
-        Set<ValidationMessage> errors = schema.validate(root);
         if (!errors.isEmpty()) {
-            String details = errors.stream()
-                    .map(ValidationMessage::getMessage)
-                    .collect(Collectors.joining(", "));
+            String details = String.join(", ", errors);
             log.warn("Recipe extraction response failed schema validation: {}", details);
+            metrics.recordSchemaValidationFailure(extractionSource);
             throw new RecipeSchemaValidationException("Schema validation failed: " + details);
         }
 
-        RecipeImportDraft draft = new RecipeImportDraft();
         draft.setSourceUrl(sourceUrl);
         draft.setExtractionSource(extractionSource);
-        draft.setName(root.path("name").asText(null));
+        return draft;
+    }
 
-        JsonNode servingsNode = root.path("servings");
-        if (!servingsNode.isMissingNode() && !servingsNode.isNull()) {
-            draft.setServings(servingsNode.asInt());
-        }
+    private void bindRecipe(JsonParser parser, RecipeImportDraft draft, List<String> errors) throws IOException {
+        boolean hasName = false;
+        boolean hasIngredients = false;
+        draft.setIngredientLines(new ArrayList<>());
 
-        draft.setMethod(root.path("method").asText(null));
-
-        List<RecipeImportDraft.ImportedIngredientLine> lines = new ArrayList<>();
-        JsonNode ingredients = root.path("ingredients");
-        if (ingredients.isArray()) {
-            for (JsonNode item : ingredients) {
-                RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
-                line.setRawText(item.path("rawText").asText(null));
-                JsonNode quantityNode = item.path("quantity");
-                if (!quantityNode.isMissingNode() && !quantityNode.isNull()) {
-                    line.setQuantity(quantityNode.asDouble());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> {
+                    hasName = true;
+                    draft.setName(string(parser, value, "$.name", false, 1, errors));
                 }
-                line.setUnitNameHint(item.path("unitName").asText(null));
-                line.setIngredientNameHint(item.path("ingredientName").asText(null));
-                lines.add(line);
+                case "servings" -> draft.setServings(integerOrNull(parser, value, "$.servings", errors));
+                case "method" -> draft.setMethod(string(parser, value, "$.method", false, 0, errors));
+                case "ingredients" -> {
+                    hasIngredients = true;
+                    bindIngredients(parser, value, draft.getIngredientLines(), errors);
+                }
+                default -> parser.skipChildren();
             }
         }
-        draft.setIngredientLines(lines);
+        if (!hasName) errors.add("$: required property 'name' not found");
+        if (!hasIngredients) errors.add("$: required property 'ingredients' not found");
+    }
 
-        return draft;
+    private void bindIngredients(JsonParser parser, JsonToken value,
+                                 List<RecipeImportDraft.ImportedIngredientLine> lines,
+                                 List<String> errors) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            errors.add("$.ingredients: " + typeName(value) + " found, array expected");
+            parser.skipChildren();
+            return;
+        }
+        int index = 0;
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            String path = "$.ingredients[" + index++ + "]";
+            if (item != JsonToken.START_OBJECT) {
+                errors.add(path + ": " + typeName(item) + " found, object expected");
+                parser.skipChildren();
+                continue;
+            }
+            lines.add(bindLine(parser, path, errors));
+        }
     }
 
-    public String stripMarkdownFences(String text) {
-        String trimmed = text.trim();
-        if (trimmed.startsWith("```")) {
-            int firstNewline = trimmed.indexOf('\n');
-            if (firstNewline != -1) {
-                trimmed = trimmed.substring(firstNewline + 1);
+    private RecipeImportDraft.ImportedIngredientLine bindLine(JsonParser parser, String path,
+                                                              List<String> errors) throws IOException {
+        RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+        boolean hasRawText = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "rawText" -> {
+                    hasRawText = true;
+                    line.setRawText(string(parser, value, path + ".rawText", false, 1, errors));
+                }
+                case "quantity" -> line.setQuantity(numberOrNull(parser, value, path + ".quantity", errors));
+                case "unitName" -> line.setUnitNameHint(string(parser, value, path + ".unitName", true, 0, errors));
+                case "ingredientName" ->
+                        line.setIngredientNameHint(string(parser, value, path + ".ingredientName", false, 0, errors));
+                default -> parser.skipChildren();
             }
-            if (trimmed.endsWith("```")) {
-                trimmed = trimmed.substring(0, trimmed.lastIndexOf("```")).trim();
+        }
+        if (!hasRawText) errors.add(path + ": required property 'rawText' not found");
+        return line;
+    }
+
+    private static String string(JsonParser parser, JsonToken value, String path, boolean nullable,
+                                 int minLength, List<String> errors) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            String text = parser.getText();
+            if (text.codePointCount(0, text.length()) < minLength) {
+                errors.add(path + ": must be at least " + minLength + " characters long");
             }
+            return text;
+        }
+        if (value == JsonToken.VALUE_NULL && nullable) {
+            return null;
+        }
+        errors.add(path + ": " + typeName(value) + " found, " + (nullable ? "[string, null]" : "string") + " expected");
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Integer integerOrNull(JsonParser parser, JsonToken value, String path,
+                                         List<String> errors) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getValueAsInt();
+        }
+        // JSON Schema counts 4.0 as an integer.
+        if (value == JsonToken.VALUE_NUMBER_FLOAT && parser.getDoubleValue() == Math.rint(parser.getDoubleValue())) {
+            return (int) parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
         }
-        return trimmed;
+        errors.add(path + ": " + typeName(value) + " found, [integer, null] expected");
+        parser.skipChildren();
+        return null;
+    }
+
+    private static Double numberOrNull(JsonParser parser, JsonToken value, String path,
+                                       List<String> errors) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        errors.add(path + ": " + typeName(value) + " found, [number, null] expected");
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String typeName(JsonToken token) {
+        if (token == null) return "nothing";
+        return switch (token) {
+            case START_OBJECT -> "object";
+            case START_ARRAY -> "array";
+            case VALUE_STRING -> "string";
+            case VALUE_NUMBER_INT -> "integer";
+            case VALUE_NUMBER_FLOAT -> "number";
+            case VALUE_TRUE, VALUE_FALSE -> "boolean";
+            case VALUE_NULL -> "null";
+            default -> token.name().toLowerCase();
+        };
     }
 }
@@ -0,0 +1,81 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breakers and bulkheads for the import pipeline's external dependencies. Each
+ * dependency gets its own concurrency pool, so a slow Anthropic model or recipe site can only hold
+ * a bounded number of request threads. While a breaker is open, calls fail immediately instead of
+ * waiting for the read timeout.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    static final String ANTHROPIC_TEXT = "anthropic-text";
+    static final String ANTHROPIC_VISION = "anthropic-vision";
+    static final String URL_FETCH = "url-fetch";
+
+    @Bean
+    CircuitBreakerRegistry importCircuitBreakerRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${import.resilience.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${import.resilience.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${import.resilience.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+            @Value("${import.resilience.slow-call.anthropic-text:PT10S}") Duration textSlowCall,
+            @Value("${import.resilience.slow-call.anthropic-vision:PT25S}") Duration visionSlowCall,
+            @Value("${import.resilience.slow-call.url-fetch:PT5S}") Duration fetchSlowCall) {
+        CircuitBreakerConfig defaults = CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(Math.max(minimumCalls, 20))
+                .minimumNumberOfCalls(minimumCalls)
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(openDuration)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(defaults);
+        registry.circuitBreaker(ANTHROPIC_TEXT, withSlowCall(defaults, textSlowCall));
+        registry.circuitBreaker(ANTHROPIC_VISION, withSlowCall(defaults, visionSlowCall));
+        registry.circuitBreaker(URL_FETCH, withSlowCall(defaults, fetchSlowCall));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    BulkheadRegistry importBulkheadRegistry(
+            MeterRegistry meterRegistry,
+            @Value("${import.resilience.bulkhead.anthropic-text:8}") int textConcurrency,
+            @Value("${import.resilience.bulkhead.anthropic-vision:4}") int visionConcurrency,
+            @Value("${import.resilience.bulkhead.url-fetch:16}") int fetchConcurrency,
+            @Value("${import.resilience.bulkhead.max-wait:PT2S}") Duration maxWait) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        registry.bulkhead(ANTHROPIC_TEXT, bulkhead(textConcurrency, maxWait));
+        registry.bulkhead(ANTHROPIC_VISION, bulkhead(visionConcurrency, maxWait));
+        registry.bulkhead(URL_FETCH, bulkhead(fetchConcurrency, maxWait));
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    private static CircuitBreakerConfig withSlowCall(CircuitBreakerConfig defaults, Duration slowCall) {
+        return CircuitBreakerConfig.from(defaults).slowCallDurationThreshold(slowCall).build();
+    }
+
+    private static BulkheadConfig bulkhead(int maxConcurrentCalls, Duration maxWait) {
+        return BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build();
+    }
+}
@@ -2,10 +2,10 @@ package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
@@ -17,11 +17,25 @@ import java.util.stream.StreamSupport;
 
 @Component
 @Order(1)
-@RequiredArgsConstructor
 public class SchemaOrgExtractor implements RecipeExtractor {
 
     private final ObjectMapper objectMapper;
     private final LlmIngredientRefiner ingredientRefiner;
+    private final IngredientResolver ingredientResolver;
+    private final ImportMetrics metrics;
+    private final double minConfidence;
+
+    public SchemaOrgExtractor(ObjectMapper objectMapper,
+                              LlmIngredientRefiner ingredientRefiner,
+                              IngredientResolver ingredientResolver,
+                              ImportMetrics metrics,
+                              @Value("${import.refinement.min-confidence:0.8}") double minConfidence) {
+        this.objectMapper = objectMapper;
+        this.ingredientRefiner = ingredientRefiner;
+        this.ingredientResolver = ingredientResolver;
+        this.metrics = metrics;
+        this.minConfidence = minConfidence;
+    }
 
     @Override
     public Optional<RecipeImportDraft> extract(String html, String sourceUrl) {
@@ -37,6 +51,8 @@ public class SchemaOrgExtractor implements RecipeExtractor {
                 }
             }
             return Optional.empty();
+        } catch (ImportCancelledException e) {
+            throw e;
         } catch (Exception e) {
             return Optional.empty();
         }
@@ -87,10 +103,7 @@ public class SchemaOrgExtractor implements RecipeExtractor {
             }
         }
 
-        List<RecipeImportDraft.ImportedIngredientLine> lines =
-                ingredientRefiner.refine(rawIngredients)
-                        .orElseGet(() -> parseWithRegex(rawIngredients));
-        draft.setIngredientLines(lines);
+        draft.setIngredientLines(parseIngredients(rawIngredients));
 
         return draft;
     }
@@ -124,6 +137,34 @@ public class SchemaOrgExtractor implements RecipeExtractor {
         return lines;
     }
 
+    /**
+     * Parses every line locally and sends only those the catalogue can't confidently resolve to
+     * the model, in one call. Refined lines replace their regex parse by position; if the call
+     * fails, the regex parse stands.
+     */
+    private List<RecipeImportDraft.ImportedIngredientLine> parseIngredients(List<String> rawIngredients) {
+        List<RecipeImportDraft.ImportedIngredientLine> lines = parseWithRegex(rawIngredients);
+        List<Integer> uncertain = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (ingredientResolver.confidence(lines.get(i)) < minConfidence) {
+                uncertain.add(i);
+            }
+        }
+        metrics.recordRefinementRouting(lines.size() - uncertain.size(), uncertain.size());
+        if (uncertain.isEmpty()) {
+            if (!lines.isEmpty()) metrics.recordRefinement("skipped_confident");
+            return lines;
+        }
+
+        List<String> uncertainText = uncertain.stream().map(rawIngredients::get).toList();
+        ingredientRefiner.refine(uncertainText).ifPresent(refined -> {
+            for (int i = 0; i < uncertain.size(); i++) {
+                lines.set(uncertain.get(i), refined.get(i));
+            }
+        });
+        return lines;
+    }
+
     private String parseInstructions(JsonNode instructionsNode) {
         if (instructionsNode.isMissingNode()) return null;
         if (instructionsNode.isArray()) {
@@ -0,0 +1,154 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incrementally parses the extraction JSON as the model writes it and reports each top-level
+ * field and each finished ingredient line to a {@link DraftListener}. Text before the opening
+ * brace (a markdown fence, usually) and anything after the root object closes is ignored.
+ *
+ * <p>This is a preview only: nothing is schema-validated here, and a malformed stream simply
+ * stops producing events. The full text still goes through {@link RecipeImportDraftParser}.
+ * Not thread-safe; create one per response.
+ */
+@Slf4j
+class StreamingDraftParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Nesting depth of the root object, the ingredients array and one ingredient line.
+    private static final int ROOT = 1;
+    private static final int INGREDIENTS = 2;
+    private static final int LINE = 3;
+
+    private final DraftListener listener;
+    private final JsonParser parser;
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String field;
+    private boolean inIngredients;
+    private String lineField;
+    private RecipeImportDraft.ImportedIngredientLine line;
+    private int lineIndex;
+
+    StreamingDraftParser(DraftListener listener) {
+        this.listener = listener;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create streaming JSON parser", e);
+        }
+    }
+
+    void feed(String chunk) {
+        if (finished || chunk.isEmpty()) return;
+        if (!started) {
+            int brace = chunk.indexOf('{');
+            if (brace < 0) return;
+            chunk = chunk.substring(brace);
+            started = true;
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        } catch (IOException e) {
+            log.debug("Stopped streaming draft preview: {}", e.getMessage());
+            finished = true;
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT -> {
+                depth++;
+                if (inIngredients && depth == LINE) {
+                    line = new RecipeImportDraft.ImportedIngredientLine();
+                    lineField = null;
+                }
+            }
+            case START_ARRAY -> {
+                depth++;
+                if (depth == INGREDIENTS && "ingredients".equals(field)) {
+                    inIngredients = true;
+                }
+            }
+            case END_OBJECT -> {
+                if (line != null && depth == LINE) {
+                    if (line.getRawText() != null) {
+                        listener.onIngredientLine(lineIndex++, line);
+                    }
+                    line = null;
+                }
+                depth--;
+                finished = depth == 0;
+            }
+            case END_ARRAY -> {
+                if (depth == INGREDIENTS) {
+                    inIngredients = false;
+                }
+                depth--;
+            }
+            case FIELD_NAME -> {
+                if (depth == ROOT) {
+                    field = parser.currentName();
+                } else if (line != null && depth == LINE) {
+                    lineField = parser.currentName();
+                }
+            }
+            default -> {
+                if (depth == ROOT) {
+                    rootValue(token);
+                } else if (line != null && depth == LINE) {
+                    lineValue(token);
+                }
+            }
+        }
+    }
+
+    private void rootValue(JsonToken token) throws IOException {
+        if (field == null) return;
+        switch (field) {
+            case "name" -> {
+                if (token == JsonToken.VALUE_STRING) listener.onName(parser.getText());
+            }
+            case "servings" -> {
+                if (token == JsonToken.VALUE_NUMBER_INT) listener.onServings(parser.getIntValue());
+            }
+            case "method" -> {
+                if (token == JsonToken.VALUE_STRING) listener.onMethod(parser.getText());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void lineValue(JsonToken token) throws IOException {
+        if (lineField == null) return;
+        switch (lineField) {
+            case "rawText" -> line.setRawText(stringOrNull(token));
+            case "unitName" -> line.setUnitNameHint(stringOrNull(token));
+            case "ingredientName" -> line.setIngredientNameHint(stringOrNull(token));
+            case "quantity" -> {
+                if (token.isNumeric()) line.setQuantity(parser.getDoubleValue());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private String stringOrNull(JsonToken token) throws IOException {
+        return token == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import java.util.Optional;
+
+public interface StreamingRecipeExtractor extends RecipeExtractor {
+    Optional<RecipeImportDraft> extract(String html, String sourceUrl, DraftListener listener);
+}
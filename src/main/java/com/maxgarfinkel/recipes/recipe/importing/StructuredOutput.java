@@ -0,0 +1,114 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tool-use mode for the extraction calls. Each request offers a single tool whose input schema
+ * is {@code schema/recipe-extraction-schema.json} (or its ingredient list) and forces the model
+ * to call it, so the answer arrives as a structured {@code tool_use} block instead of free text
+ * that may be fenced, chatty or truncated mid-object.
+ *
+ * <p>Responses are read tolerantly: a {@code tool_use} block is preferred, and a plain text block
+ * is still accepted, so {@code anthropic.tool-use: false} falls back to the prompt-only contract.
+ */
+@Component
+public class StructuredOutput {
+
+    static final String RECIPE_TOOL = "record_recipe";
+    static final String INGREDIENTS_TOOL = "record_ingredients";
+
+    private final boolean enabled;
+    private final Map<String, Object> recipeTool;
+    private final Map<String, Object> ingredientsTool;
+
+    public StructuredOutput(ObjectMapper objectMapper,
+                            @Value("${anthropic.tool-use:true}") boolean enabled) {
+        this.enabled = enabled;
+        ObjectNode schema;
+        try (InputStream stream = getClass().getResourceAsStream("/schema/recipe-extraction-schema.json")) {
+            schema = (ObjectNode) objectMapper.readTree(stream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load recipe extraction JSON schema", e);
+        }
+        // The draft marker is for validators; tool input schemas are plain JSON Schema objects.
+        schema.remove("$schema");
+
+        ObjectNode ingredientsSchema = objectMapper.createObjectNode().put("type", "object");
+        ingredientsSchema.putArray("required").add("ingredients");
+        ingredientsSchema.putObject("properties").set("ingredients", schema.path("properties").path("ingredients"));
+
+        this.recipeTool = Map.of(
+                "name", RECIPE_TOOL,
+                "description", "Record the recipe extracted from the source.",
+                "input_schema", schema);
+        this.ingredientsTool = Map.of(
+                "name", INGREDIENTS_TOOL,
+                "description", "Record the parsed ingredient lines, one per input string and in the same order.",
+                "input_schema", ingredientsSchema);
+    }
+
+    /** Adds the recipe tool to a messages request and forces its use, when tool use is enabled. */
+    public Map<String, Object> forRecipe(Map<String, Object> requestBody) {
+        return withTool(requestBody, recipeTool, RECIPE_TOOL);
+    }
+
+    /** Adds the ingredient-list tool to a messages request and forces its use, when enabled. */
+    public Map<String, Object> forIngredients(Map<String, Object> requestBody) {
+        return withTool(requestBody, ingredientsTool, INGREDIENTS_TOOL);
+    }
+
+    private Map<String, Object> withTool(Map<String, Object> requestBody, Map<String, Object> tool, String name) {
+        if (!enabled) {
+            return requestBody;
+        }
+        Map<String, Object> body = new LinkedHashMap<>(requestBody);
+        body.put("tools", List.of(tool));
+        body.put("tool_choice", Map.of("type", "tool", "name", name));
+        return body;
+    }
+
+    /** The input of the first {@code tool_use} block calling {@code toolName}, if there is one. */
+    public static Optional<JsonNode> toolInput(JsonNode response, String toolName) {
+        for (JsonNode block : response.path("content")) {
+            if ("tool_use".equals(block.path("type").asText()) && toolName.equals(block.path("name").asText())) {
+                return Optional.of(block.path("input"));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** The first text block with any markdown code fence around it removed, or "" if there is none. */
+    public static String text(JsonNode response) {
+        for (JsonNode block : response.path("content")) {
+            if ("text".equals(block.path("type").asText())) {
+                return stripMarkdownFences(block.path("text").asText());
+            }
+        }
+        return "";
+    }
+
+    public static String stripMarkdownFences(String text) {
+        String trimmed = text.trim();
+        if (trimmed.startsWith("```")) {
+            int firstNewline = trimmed.indexOf('\n');
+            if (firstNewline != -1) {
+                trimmed = trimmed.substring(firstNewline + 1);
+            }
+            if (trimmed.endsWith("```")) {
+                trimmed = trimmed.substring(0, trimmed.lastIndexOf("```")).trim();
+            }
+        }
+        return trimmed;
+    }
+}
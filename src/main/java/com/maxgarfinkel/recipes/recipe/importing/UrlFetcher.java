@@ -1,23 +1,77 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class UrlFetcher {
 
     private final RestClient restClient;
+    private final ImportMetrics metrics;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
 
-    public UrlFetcher(RestClient.Builder restClientBuilder) {
+    public UrlFetcher(RestClient.Builder restClientBuilder,
+                      ImportMetrics metrics,
+                      CircuitBreakerRegistry circuitBreakerRegistry,
+                      BulkheadRegistry bulkheadRegistry,
+                      @Value("${import.fetch.connect-timeout:PT5S}") Duration connectTimeout,
+                      @Value("${import.fetch.read-timeout:PT10S}") Duration readTimeout) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(connectTimeout);
+        factory.setReadTimeout(readTimeout);
         this.restClient = restClientBuilder
+                .requestFactory(factory)
                 .defaultHeader("User-Agent", "Mozilla/5.0 (compatible; RecipeImporter/1.0)")
                 .build();
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(ResilienceConfig.URL_FETCH);
+        this.bulkhead = bulkheadRegistry.bulkhead(ResilienceConfig.URL_FETCH);
     }
 
+    /**
+     * Fetches a recipe page. Fails fast with {@link RecipeImportException} when too many fetches
+     * are already in flight or recent fetches have mostly failed. A 4xx from the site is the
+     * page's problem, not a sign our fetching is broken, so it doesn't count against the breaker.
+     */
     public String fetch(String url) {
-        return restClient.get()
-                .uri(url)
-                .retrieve()
-                .body(String.class);
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new RecipeImportException("Recipe fetching is temporarily unavailable, please try again shortly");
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            throw new RecipeImportException("Too many recipe imports in progress, please try again shortly");
+        }
+        long start = System.nanoTime();
+        String html = null;
+        try {
+            html = restClient.get()
+                    .uri(url)
+                    .retrieve()
+                    .body(String.class);
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return html;
+        } catch (HttpClientErrorException e) {
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        } finally {
+            bulkhead.onComplete();
+            long bytes = html == null ? 0 : html.getBytes(StandardCharsets.UTF_8).length;
+            metrics.recordFetch(Duration.ofNanos(System.nanoTime() - start), bytes, html != null);
+        }
     }
 }
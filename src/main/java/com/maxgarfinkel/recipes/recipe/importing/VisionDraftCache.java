@@ -0,0 +1,75 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Drafts from earlier vision extractions, keyed by the SHA-256 of the prepared image they came
+ * from. The cache is shared by every user, so a lookup only trusts a near match when it is
+ * plainly the same page: byte-identical images match first; otherwise a stored image must be
+ * within {@code import.vision-cache.max-distance} bits by {@link PerceptualHash#dHash} and within
+ * {@code import.vision-cache.max-detail-distance} bits by {@link PerceptualHash#detailHash}. That
+ * still lets a retried upload or the same page shot on another phone skip the vision call.
+ *
+ * <p>Drafts are stored and returned as copies taken before entity resolution, so callers can
+ * resolve and mutate what they get back, and a hit is resolved against the current catalogue.
+ * The cache is small enough that a linear scan of the hashes costs microseconds.
+ */
+@Component
+public class VisionDraftCache {
+
+    private record Entry(Long hash, long[] detailHash, RecipeImportDraft draft) {
+    }
+
+    private final Cache<String, Entry> drafts;
+    private final int maxDistance;
+    private final int maxDetailDistance;
+    private final ImportMetrics metrics;
+
+    public VisionDraftCache(@Value("${import.vision-cache.max-size:500}") long maxSize,
+                            @Value("${import.vision-cache.ttl:P7D}") Duration ttl,
+                            @Value("${import.vision-cache.max-distance:6}") int maxDistance,
+                            @Value("${import.vision-cache.max-detail-distance:200}") int maxDetailDistance,
+                            ImportMetrics metrics) {
+        this.drafts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.maxDistance = maxDistance;
+        this.maxDetailDistance = maxDetailDistance;
+        this.metrics = metrics;
+    }
+
+    public Optional<RecipeImportDraft> find(ImagePreprocessor.PreparedImage image) {
+        Entry exact = drafts.getIfPresent(image.sha256());
+        if (exact != null) {
+            metrics.recordVisionCacheLookup(true);
+            return Optional.of(exact.draft().copy());
+        }
+        Entry closest = null;
+        if (image.hash() != null) {
+            int closestDistance = maxDetailDistance + 1;
+            for (Entry entry : drafts.asMap().values()) {
+                if (entry.hash() == null || PerceptualHash.distance(image.hash(), entry.hash()) > maxDistance) {
+                    continue;
+                }
+                int distance = PerceptualHash.distance(image.detailHash(), entry.detailHash());
+                if (distance < closestDistance) {
+                    closest = entry;
+                    closestDistance = distance;
+                }
+            }
+        }
+        metrics.recordVisionCacheLookup(closest != null);
+        return Optional.ofNullable(closest).map(entry -> entry.draft().copy());
+    }
+
+    public void put(ImagePreprocessor.PreparedImage image, RecipeImportDraft draft) {
+        drafts.put(image.sha256(), new Entry(image.hash(), image.detailHash(), draft.copy()));
+    }
+}
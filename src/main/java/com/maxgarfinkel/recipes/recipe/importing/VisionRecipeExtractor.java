@@ -1,11 +1,11 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -17,22 +17,53 @@ public class VisionRecipeExtractor {
     private final AnthropicClient anthropicClient;
     private final RecipeImportDraftParser parser;
     private final PromptBuilder promptBuilder;
+    private final StructuredOutput structuredOutput;
+    private final ImagePreprocessor imagePreprocessor;
+    private final VisionDraftCache draftCache;
     private final String model;
     private final String extractionPromptTemplate;
 
     public VisionRecipeExtractor(AnthropicClient anthropicClient,
                                  RecipeImportDraftParser parser,
                                  PromptBuilder promptBuilder,
+                                 StructuredOutput structuredOutput,
+                                 ImagePreprocessor imagePreprocessor,
+                                 VisionDraftCache draftCache,
                                  @Value("${anthropic.vision-model:claude-sonnet-4-6}") String model,
                                  @Qualifier("visionExtractionPrompt") String extractionPromptTemplate) {
         this.anthropicClient = anthropicClient;
         this.parser = parser;
         this.promptBuilder = promptBuilder;
+        this.structuredOutput = structuredOutput;
+        this.imagePreprocessor = imagePreprocessor;
+        this.draftCache = draftCache;
         this.model = model;
         this.extractionPromptTemplate = extractionPromptTemplate;
     }
 
     public Optional<RecipeImportDraft> extract(byte[] imageBytes, String mediaType) {
+        return extract(imageBytes, mediaType, AnthropicRateLimiter.Priority.INTERACTIVE);
+    }
+
+    /** As {@link #extract(byte[], String)}, queueing for the rate limit at the given priority. */
+    public Optional<RecipeImportDraft> extract(byte[] imageBytes, String mediaType,
+                                               AnthropicRateLimiter.Priority priority) {
+        try {
+            return extractPage(imageBytes, mediaType, priority);
+        } catch (AnthropicApiException e) {
+            log.warn("Vision extraction failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * As {@link #extract(byte[], String, AnthropicRateLimiter.Priority)}, but a call that never got
+     * an answer (open breaker, full bulkhead, rate limit or server errors past the retries) throws
+     * its {@link AnthropicApiException}. Empty then only means the model read the image and found
+     * no recipe in it, so callers can tell a blank page from one that is worth retrying.
+     */
+    public Optional<RecipeImportDraft> extractPage(byte[] imageBytes, String mediaType,
+                                                   AnthropicRateLimiter.Priority priority) {
         if (!anthropicClient.isConfigured()) {
             return Optional.empty();
         }
@@ -41,37 +72,49 @@ public class VisionRecipeExtractor {
             return Optional.empty();
         }
 
-        String base64Image = Base64.getEncoder().encodeToString(imageBytes);
+        ImagePreprocessor.PreparedImage image = imagePreprocessor.prepare(imageBytes, mediaType);
+        Optional<RecipeImportDraft> cached = draftCache.find(image);
+        if (cached.isPresent()) {
+            log.debug("Vision extraction answered from cache for image {}.", image.sha256());
+            return cached;
+        }
 
-        Map<String, Object> requestBody = Map.of(
+        // The instructions are static, so they go in the cached system prompt and the image is the
+        // whole user turn.
+        Map<String, Object> requestBody = structuredOutput.forRecipe(Map.of(
                 "model", model,
                 "max_tokens", 2048,
+                "system", PromptBuilder.cachedSystem(promptBuilder.buildImagePrompt(extractionPromptTemplate)),
                 "messages", List.of(Map.of(
                         "role", "user",
                         "content", List.of(
                                 Map.of("type", "image", "source", Map.of(
                                         "type", "base64",
-                                        "media_type", mediaType,
-                                        "data", base64Image
-                                )),
-                                Map.of("type", "text", "text", promptBuilder.buildImagePrompt(extractionPromptTemplate))
+                                        "media_type", image.mediaType(),
+                                        // Left as bytes: Jackson base64-encodes them while serialising the request.
+                                        "data", image.data()
+                                ))
                         )
                 ))
-        );
+        ));
 
         try {
-            String content = anthropicClient.sendMessages(requestBody)
-                    .path("content").path(0).path("text").asText();
-            if (content.isBlank()) {
+            JsonNode response = anthropicClient.sendMessages(requestBody, AnthropicClient.Lane.VISION, priority);
+            Optional<JsonNode> toolInput = StructuredOutput.toolInput(response, StructuredOutput.RECIPE_TOOL);
+            String content = toolInput.isPresent() ? null : StructuredOutput.text(response);
+            if (toolInput.isEmpty() && content.isBlank()) {
                 log.warn("Anthropic returned empty content for vision extraction.");
                 return Optional.empty();
             }
-            return Optional.of(parser.parse(content, null, "VISION"));
+            RecipeImportDraft draft = toolInput.isPresent()
+                    ? parser.parse(toolInput.get(), null, "VISION")
+                    : parser.parse(content, null, "VISION");
+            draftCache.put(image, draft);
+            return Optional.of(draft);
         } catch (RecipeSchemaValidationException e) {
             return Optional.empty(); // already logged by parser
-        } catch (AnthropicApiException e) {
-            log.warn("Vision extraction failed: {}", e.getMessage());
-            return Optional.empty();
+        } catch (ImportCancelledException | AnthropicApiException e) {
+            throw e;
         } catch (Exception e) {
             log.warn("Vision extraction failed due to unexpected error: {}", e.getMessage());
             return Optional.empty();
@@ -1,9 +1,12 @@
 package com.maxgarfinkel.recipes.unit;
 
+import com.maxgarfinkel.recipes.CatalogueVersion;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -13,9 +16,17 @@ import java.util.List;
 public class UnitController {
 
     private final UnitService unitService;
+    private final CatalogueVersion catalogueVersion;
 
     @GetMapping("/")
-    public List<UnitDto> getAllUnits() {
-        return unitService.getUnitsAsDtos();
+    public ResponseEntity<List<UnitDto>> getAllUnits(WebRequest request) {
+        String etag = catalogueVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(catalogueVersion.cacheControl())
+                .body(unitService.getUnitsAsDtos());
     }
 }
@@ -1,22 +1,30 @@
 package com.maxgarfinkel.recipes.unit;
 
 import com.maxgarfinkel.recipes.ItemNotFound;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class UnitService {
 
     private final UnitRepository unitRepository;
 
+    /** Units only change through Flyway migrations, so they are loaded once per process. */
+    private volatile List<UnitDto> unitDtos;
+
     public List<UnitDto> getUnitsAsDtos() {
-        return unitRepository.findAll()
-                .stream()
-                .map(Unit::toDto)
-                .toList();
+        List<UnitDto> units = unitDtos;
+        if (units == null) {
+            units = unitRepository.findAll()
+                    .stream()
+                    .map(Unit::toDto)
+                    .toList();
+            unitDtos = units;
+        }
+        return units;
     }
 
     public Unit getEntityById(Long unitId) {
@@ -1,9 +1,23 @@
 package com.maxgarfinkel.recipes.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
     Optional<AppUser> findBySub(String sub);
+
+    /**
+     * Inserts the user unless one with the same {@code sub} already exists. The unique
+     * constraint arbitrates concurrent first requests, so neither of them fails.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO app_user (sub, display_name) VALUES (:sub, :displayName) " +
+            "ON CONFLICT (sub) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("sub") String sub, @Param("displayName") String displayName);
 }
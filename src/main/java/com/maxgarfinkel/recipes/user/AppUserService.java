@@ -1,16 +1,39 @@
 package com.maxgarfinkel.recipes.user;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-@RequiredArgsConstructor
 public class AppUserService {
 
     private final AppUserRepository appUserRepository;
 
-    public AppUser findOrCreate(String sub, String displayName) {
-        return appUserRepository.findBySub(sub)
-                .orElseGet(() -> appUserRepository.save(new AppUser(sub, displayName)));
+    /** Subjects known to have an {@code app_user} row. */
+    private final Cache<String, Boolean> knownSubjects;
+
+    public AppUserService(AppUserRepository appUserRepository,
+                          @Value("${app-user.cache.max-size:10000}") long maxSize,
+                          @Value("${app-user.cache.ttl:PT1H}") Duration ttl) {
+        this.appUserRepository = appUserRepository;
+        this.knownSubjects = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Makes sure a user row exists for {@code sub}. Once a subject has been seen, calls are
+     * answered from memory without touching the database until the entry expires. Concurrent
+     * first calls for the same subject share one upsert.
+     */
+    public void ensureExists(String sub, String displayName) {
+        knownSubjects.get(sub, s -> {
+            appUserRepository.insertIfAbsent(s, displayName);
+            return Boolean.TRUE;
+        });
     }
 }
@@ -0,0 +1,2 @@
+-- Optimistic locking version for recipes; also used as the recipe's HTTP ETag.
+ALTER TABLE recipe ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
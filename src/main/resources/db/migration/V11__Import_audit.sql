@@ -0,0 +1,21 @@
+-- One row per LLM extraction call: the input needed to replay it and what the model answered.
+-- Read by the offline replay runner to compare prompt and parser changes against real pages.
+CREATE TABLE import_audit (
+    id                          BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    created_at                  TIMESTAMP WITH TIME ZONE NOT NULL,
+    source_url                  VARCHAR(2048),
+    html_gzip                   BYTEA NOT NULL,
+    prompt_version              VARCHAR(255) NOT NULL,
+    model                       VARCHAR(255) NOT NULL,
+    -- SHA-256 of the variable part of the prompt; the replay stub answers by it.
+    request_hash                CHAR(64) NOT NULL,
+    raw_response                TEXT NOT NULL,
+    parsed                      BOOLEAN NOT NULL,
+    latency_ms                  BIGINT NOT NULL,
+    input_tokens                INTEGER,
+    output_tokens               INTEGER,
+    cache_read_input_tokens     INTEGER,
+    cache_creation_input_tokens INTEGER
+);
+
+CREATE INDEX import_audit_prompt_version_idx ON import_audit (prompt_version, id);
@@ -0,0 +1,2 @@
+-- How many confirmed imports agree with an alias. Existing aliases were each chosen once by hand.
+ALTER TABLE ingredient_alias ADD COLUMN confirmed_count INTEGER NOT NULL DEFAULT 1;
@@ -0,0 +1,2 @@
+-- Lets the retention job find expired audits without scanning every stored page.
+CREATE INDEX import_audit_created_at_idx ON import_audit (created_at);
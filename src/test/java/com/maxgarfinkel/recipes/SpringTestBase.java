@@ -23,6 +23,9 @@ public class SpringTestBase {
     @Autowired
     protected JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    protected CatalogueVersion catalogueVersion;
+
     @LocalServerPort
     protected int port;
 
@@ -38,6 +41,8 @@ public class SpringTestBase {
         jdbcTemplate.execute("ALTER SEQUENCE ingredient_quantity_seq RESTART WITH 1");
         jdbcTemplate.execute("ALTER SEQUENCE recipe_seq RESTART WITH 1");
         jdbcTemplate.execute("ALTER SEQUENCE app_user_id_seq RESTART WITH 1");
+        // Truncation bypasses the services, so drop any in-memory catalogue copies too.
+        catalogueVersion.increment();
     }
 
 }
@@ -8,13 +8,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.hamcrest.Matchers;
@@ -36,6 +40,21 @@ class IngredientAliasControllerWebMVCTest {
     @MockBean
     private AppUserService appUserService;
 
+    @Test
+    void shouldSaveAliasesInBatch() throws Exception {
+        mockMvc.perform(post("/api/v1/ingredient-alias/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"aliasText": "basilico", "ingredientId": 1, "unitId": 1},
+                                 {"aliasText": "origano", "ingredientId": 2, "unitId": 1}]
+                                """))
+                .andExpect(status().isNoContent());
+
+        verify(ingredientAliasService).saveAll(List.of(
+                new IngredientAliasDto("basilico", 1L, 1L),
+                new IngredientAliasDto("origano", 2L, 1L)));
+    }
+
     @Test
     void shouldDeleteAlias() throws Exception {
         mockMvc.perform(delete("/api/v1/ingredient-alias/1"))
@@ -2,6 +2,7 @@ package com.maxgarfinkel.recipes.ingredient;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maxgarfinkel.recipes.ingredient.DuplicateIngredientException;
+import com.maxgarfinkel.recipes.CatalogueVersion;
 import com.maxgarfinkel.recipes.ItemNotFound;
 import com.maxgarfinkel.recipes.PageResponse;
 import com.maxgarfinkel.recipes.SecurityConfig;
@@ -24,7 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(IngredientController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, CatalogueVersion.class})
 @WithMockUser
 class IngredientControllerWebMVCTest {
 
@@ -100,6 +101,40 @@ class IngredientControllerWebMVCTest {
                 );
     }
 
+    @Test
+    void shouldSaveIngredientsInBatch() throws Exception {
+        var basil = new IngredientDto("basil", null, null);
+        var oregano = new IngredientDto("oregano", 2L, null);
+
+        given(ingredientService.saveAll(List.of(basil, oregano)))
+                .willReturn(List.of(new IngredientDto("basil", 1L, null), oregano));
+
+        mockMvc.perform(post("/api/v1/ingredient/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(basil, oregano))))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$[0].id", Matchers.equalTo(1)),
+                        jsonPath("$[1].name", Matchers.equalTo("oregano"))
+                );
+    }
+
+    @Test
+    void shouldReportEveryDuplicateNameInBatch() throws Exception {
+        var ingredients = List.of(new IngredientDto("basil", null, null), new IngredientDto("Thyme", null, null));
+
+        given(ingredientService.saveAll(ingredients))
+                .willThrow(new DuplicateIngredientsException(List.of("basil", "Thyme")));
+
+        mockMvc.perform(post("/api/v1/ingredient/batch")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ingredients)))
+                .andExpectAll(
+                        status().isConflict(),
+                        jsonPath("$.duplicates", Matchers.contains("basil", "Thyme"))
+                );
+    }
+
     @Test
     void shouldUpdateIngredient() throws Exception {
 
@@ -1,11 +1,13 @@
 package com.maxgarfinkel.recipes.ingredient;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.maxgarfinkel.recipes.PageResponse;
 import com.maxgarfinkel.recipes.SpringTestBase;
 import com.maxgarfinkel.recipes.unit.UnitDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.web.client.HttpClientErrorException;
 
@@ -62,6 +64,36 @@ public class IngredientIntegrationTest extends SpringTestBase {
         assertThat(response.getStatusCode().is2xxSuccessful()).isTrue();
     }
 
+    @Test
+    public void ingredientListIsRevalidatedByCatalogueVersion() throws JsonProcessingException {
+        var first = restClient.get()
+                .uri("/api/v1/ingredient/")
+                .retrieve()
+                .toEntity(String.class);
+        var etag = first.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+        assertThat(first.getHeaders().getCacheControl()).contains("no-cache");
+
+        var notModified = restClient.get()
+                .uri("/api/v1/ingredient/")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .retrieve()
+                .toEntity(String.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(304));
+
+        // Any ingredient write moves the catalogue on.
+        String json = objectMapper.writeValueAsString(new IngredientDto("basil", null, null));
+        restClient.post().uri("/api/v1/ingredient/").body(json).retrieve().toBodilessEntity();
+
+        List<IngredientDto> afterCreate = restClient.get()
+                .uri("/api/v1/ingredient/")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .retrieve()
+                .body(new ParameterizedTypeReference<>() {
+                });
+        assertThat(afterCreate).extracting(IngredientDto::getName).containsExactly("basil");
+    }
+
     @Test
     public void canUpdateIngredientDefaultUnit() throws JsonProcessingException {
         // Create ingredient without a unit
@@ -211,4 +243,178 @@ public class IngredientIntegrationTest extends SpringTestBase {
                 .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
                         .isEqualTo(HttpStatusCode.valueOf(409)));
     }
+
+    @Test
+    public void confirmedImportsVoteOnAliases() throws JsonProcessingException {
+        var unit = new UnitDto(1L, "Gram", "g", null, 1.0);
+        IngredientDto basil = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("basil", null, unit)))
+                .retrieve().body(IngredientDto.class);
+        IngredientDto oregano = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("oregano", null, unit)))
+                .retrieve().body(IngredientDto.class);
+        assertThat(basil).isNotNull();
+        assertThat(oregano).isNotNull();
+
+        String toBasil = objectMapper.writeValueAsString(List.of(new IngredientAliasDto("Fresh Basil", basil.getId(), 1L)));
+        String toBasilInKilos = objectMapper.writeValueAsString(List.of(new IngredientAliasDto("fresh basil", basil.getId(), 2L)));
+        String toOregano = objectMapper.writeValueAsString(List.of(new IngredientAliasDto("fresh basil", oregano.getId(), 1L)));
+        restClient.post().uri("/api/v1/recipe/import/confirm").body(toBasil).retrieve().toBodilessEntity();
+        restClient.post().uri("/api/v1/recipe/import/confirm").body(toBasilInKilos).retrieve().toBodilessEntity();
+        restClient.post().uri("/api/v1/recipe/import/confirm").body(toOregano).retrieve().toBodilessEntity();
+
+        // Basil in grams and basil in kilos are both votes for basil, and outvote one for oregano;
+        // the alias keeps basil, in the unit it was last confirmed with, with one vote to spare.
+        var row = jdbcTemplate.queryForMap(
+                "SELECT ingredient_id, unit_id, confirmed_count FROM ingredient_alias WHERE alias_text = 'fresh basil'");
+        assertThat(((Number) row.get("ingredient_id")).longValue()).isEqualTo(basil.getId());
+        assertThat(((Number) row.get("unit_id")).longValue()).isEqualTo(2L);
+        assertThat(((Number) row.get("confirmed_count")).intValue()).isEqualTo(1);
+
+        restClient.post().uri("/api/v1/recipe/import/confirm").body(toOregano).retrieve().toBodilessEntity();
+
+        row = jdbcTemplate.queryForMap(
+                "SELECT ingredient_id, confirmed_count FROM ingredient_alias WHERE alias_text = 'fresh basil'");
+        assertThat(((Number) row.get("ingredient_id")).longValue()).isEqualTo(oregano.getId());
+        assertThat(((Number) row.get("confirmed_count")).intValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void batchAliasSaveUpsertsAndLatestWins() throws JsonProcessingException {
+        var unit = new UnitDto(1L, "Gram", "g", null, 1.0);
+        IngredientDto basil = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("basil", null, unit)))
+                .retrieve().body(IngredientDto.class);
+        IngredientDto oregano = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("oregano", null, unit)))
+                .retrieve().body(IngredientDto.class);
+        assertThat(basil).isNotNull();
+        assertThat(oregano).isNotNull();
+
+        String batch = objectMapper.writeValueAsString(List.of(
+                new IngredientAliasDto("basilico", basil.getId(), 1L),
+                new IngredientAliasDto("origano", basil.getId(), 1L),
+                new IngredientAliasDto(" Origano ", oregano.getId(), 1L)));
+        restClient.post().uri("/api/v1/ingredient-alias/batch").body(batch).retrieve().toBodilessEntity();
+        restClient.post().uri("/api/v1/ingredient-alias/")
+                .body(objectMapper.writeValueAsString(new IngredientAliasDto("basilico", basil.getId(), 1L)))
+                .retrieve().toBodilessEntity();
+
+        // Repeated texts in one batch collapse to the last; saving the same mapping again counts it.
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient_alias", Integer.class)).isEqualTo(2);
+        var origano = jdbcTemplate.queryForMap(
+                "SELECT ingredient_id, confirmed_count FROM ingredient_alias WHERE alias_text = 'origano'");
+        assertThat(((Number) origano.get("ingredient_id")).longValue()).isEqualTo(oregano.getId());
+        var basilico = jdbcTemplate.queryForMap(
+                "SELECT ingredient_id, confirmed_count FROM ingredient_alias WHERE alias_text = 'basilico'");
+        assertThat(((Number) basilico.get("confirmed_count")).intValue()).isEqualTo(2);
+
+        // A manual save moves an established alias straight away.
+        restClient.post().uri("/api/v1/ingredient-alias/")
+                .body(objectMapper.writeValueAsString(new IngredientAliasDto("basilico", oregano.getId(), 1L)))
+                .retrieve().toBodilessEntity();
+        basilico = jdbcTemplate.queryForMap(
+                "SELECT ingredient_id, confirmed_count FROM ingredient_alias WHERE alias_text = 'basilico'");
+        assertThat(((Number) basilico.get("ingredient_id")).longValue()).isEqualTo(oregano.getId());
+        assertThat(((Number) basilico.get("confirmed_count")).intValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void batchSaveCreatesAndUpdatesIngredients() throws JsonProcessingException {
+        var unit = new UnitDto(1L, "Gram", "g", null, 1.0);
+        IngredientDto basil = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("basil", null, unit)))
+                .retrieve().body(IngredientDto.class);
+        assertThat(basil).isNotNull();
+
+        String batch = objectMapper.writeValueAsString(List.of(
+                new IngredientDto(" thyme ", null, unit),
+                new IngredientDto("Sweet Basil", basil.getId(), null),
+                new IngredientDto("oregano", null, null)));
+        List<IngredientDto> saved = restClient.post().uri("/api/v1/ingredient/batch").body(batch)
+                .retrieve().body(new ParameterizedTypeReference<>() {});
+
+        assertThat(saved).extracting(IngredientDto::getName).containsExactly("thyme", "Sweet Basil", "oregano");
+        assertThat(saved.get(0).getUnitId()).isEqualTo(1L);
+        assertThat(saved.get(1).getId()).isEqualTo(basil.getId());
+
+        List<IngredientDto> all = restClient.get().uri("/api/v1/ingredient/")
+                .retrieve().body(new ParameterizedTypeReference<>() {});
+        assertThat(all).extracting(IngredientDto::getName)
+                .containsExactlyInAnyOrder("thyme", "Sweet Basil", "oregano");
+    }
+
+    @Test
+    public void batchSaveReportsEveryDuplicateAndWritesNothing() throws JsonProcessingException {
+        restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("basil", null, null)))
+                .retrieve().toBodilessEntity();
+
+        String batch = objectMapper.writeValueAsString(List.of(
+                new IngredientDto("Basil ", null, null),
+                new IngredientDto("thyme", null, null),
+                new IngredientDto("oregano", null, null),
+                new IngredientDto("THYME", null, null)));
+
+        assertThatThrownBy(() ->
+                restClient.post().uri("/api/v1/ingredient/batch").body(batch).retrieve().toBodilessEntity()
+        ).isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> {
+                    var response = (HttpClientErrorException) e;
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(409));
+                    assertThat(objectMapper.readTree(response.getResponseBodyAsString()).get("duplicates"))
+                            .extracting(JsonNode::asText)
+                            .containsExactly("Basil", "thyme", "THYME");
+                });
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void batchSaveRejectsUnnamedIngredientsBeforeQuerying() throws JsonProcessingException {
+        String batch = objectMapper.writeValueAsString(List.of(
+                new IngredientDto("thyme", null, null),
+                new IngredientDto(null, null, null),
+                new IngredientDto("  ", null, null)));
+
+        assertThatThrownBy(() ->
+                restClient.post().uri("/api/v1/ingredient/batch").body(batch).retrieve().toBodilessEntity()
+        ).isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> {
+                    var response = (HttpClientErrorException) e;
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(400));
+                    assertThat(objectMapper.readTree(response.getResponseBodyAsString()).get("invalid"))
+                            .extracting(JsonNode::asInt)
+                            .containsExactly(1, 2);
+                });
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient", Integer.class)).isZero();
+    }
+
+    @Test
+    public void singleAliasSaveRejectsIncompleteInput() throws JsonProcessingException {
+        IngredientDto basil = restClient.post().uri("/api/v1/ingredient/")
+                .body(objectMapper.writeValueAsString(new IngredientDto("basil", null, null)))
+                .retrieve().body(IngredientDto.class);
+        assertThat(basil).isNotNull();
+
+        for (IngredientAliasDto invalid : List.of(
+                new IngredientAliasDto("  ", basil.getId(), 1L),
+                new IngredientAliasDto(null, basil.getId(), 1L),
+                new IngredientAliasDto("fresh basil", basil.getId(), null))) {
+            assertThatThrownBy(() -> restClient.post().uri("/api/v1/ingredient-alias/")
+                    .body(objectMapper.writeValueAsString(invalid))
+                    .retrieve().toBodilessEntity()
+            ).isInstanceOf(HttpClientErrorException.class)
+                    .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
+                            .isEqualTo(HttpStatusCode.valueOf(400)));
+        }
+
+        // The batch endpoint still skips incomplete entries and saves the rest.
+        restClient.post().uri("/api/v1/ingredient-alias/batch")
+                .body(objectMapper.writeValueAsString(List.of(
+                        new IngredientAliasDto("  ", basil.getId(), 1L),
+                        new IngredientAliasDto("basilico", basil.getId(), 1L))))
+                .retrieve().toBodilessEntity();
+        assertThat(jdbcTemplate.queryForList("SELECT alias_text FROM ingredient_alias", String.class))
+                .containsExactly("basilico");
+    }
 }
@@ -6,10 +6,16 @@ import com.maxgarfinkel.recipes.ingredient.IngredientDto;
 import com.maxgarfinkel.recipes.unit.UnitDto;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class RecipeIntegrationTest extends SpringTestBase {
 
@@ -111,6 +117,273 @@ class RecipeIntegrationTest extends SpringTestBase {
         assertThat(updated.getSourceUrl()).isEqualTo("https://example.com/recipe");
     }
 
+    @Test
+    public void canBatchCreateAndUpdateRecipes() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        var cheese = saveIngredient("cheese");
+        var existing = restClient.post()
+                .uri("/api/v1/recipe/")
+                .body(objectMapper.writeValueAsString(new RecipeDto(null, "existing", "do stuff", 1,
+                        List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())), null)))
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(existing).isNotNull();
+
+        var batch = List.of(
+                new RecipeDto(existing.getId(), "renamed", existing.getMethod(), 2,
+                        existing.getIngredientQuantities(), null),
+                new RecipeDto(null, "first new", "mix", 4,
+                        List.of(new IngredientQuantityDto(null, 2d, cheese, cheese.getDefaultUnit())), null),
+                new RecipeDto(null, "second new", "bake", 6,
+                        List.of(new IngredientQuantityDto(null, 3d, basil, basil.getDefaultUnit()),
+                                new IngredientQuantityDto(null, 4d, cheese, cheese.getDefaultUnit())), null));
+
+        var saved = restClient.post()
+                .uri("/api/v1/recipe/batch")
+                .body(objectMapper.writeValueAsString(batch))
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<RecipeDto>>() {});
+
+        assertThat(saved).hasSize(3);
+        assertThat(saved.get(0).getId()).isEqualTo(existing.getId());
+        assertThat(saved.get(0).getName()).isEqualTo("renamed");
+        assertThat(saved.get(1).getId()).isNotNull();
+        assertThat(saved.get(2).getIngredientQuantities()).hasSize(2);
+
+        var recipes = restClient.get()
+                .uri("/api/v1/recipe/")
+                .retrieve()
+                .body(new ParameterizedTypeReference<List<RecipeDto>>() {});
+        assertThat(recipes).hasSize(3);
+    }
+
+    @Test
+    public void batchUpdateBumpsEachChangedRecipeVersionOnce() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        List<RecipeDto> created = new ArrayList<>();
+        for (String name : List.of("renamed", "requantified", "untouched")) {
+            created.add(restClient.post()
+                    .uri("/api/v1/recipe/")
+                    .body(objectMapper.writeValueAsString(new RecipeDto(null, name, "do stuff", 1,
+                            List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())), null)))
+                    .retrieve()
+                    .body(RecipeDto.class));
+        }
+        List<Long> before = created.stream().map(r -> versionOf(r.getId())).toList();
+
+        var renamed = created.get(0);
+        var requantified = created.get(1);
+        var untouched = created.get(2);
+        var quantity = requantified.getIngredientQuantities().getFirst();
+        var batch = List.of(
+                new RecipeDto(renamed.getId(), "renamed again", renamed.getMethod(), renamed.getServings(),
+                        renamed.getIngredientQuantities(), null),
+                new RecipeDto(requantified.getId(), requantified.getName(), requantified.getMethod(),
+                        requantified.getServings(),
+                        List.of(new IngredientQuantityDto(quantity.getId(), 5d, basil, basil.getDefaultUnit())), null),
+                untouched);
+        restClient.post()
+                .uri("/api/v1/recipe/batch")
+                .body(objectMapper.writeValueAsString(batch))
+                .retrieve()
+                .toBodilessEntity();
+
+        assertThat(versionOf(renamed.getId())).isEqualTo(before.get(0) + 1);
+        assertThat(versionOf(requantified.getId())).isEqualTo(before.get(1) + 1);
+        assertThat(versionOf(untouched.getId())).isEqualTo(before.get(2));
+    }
+
+    @Test
+    public void canPatchRecipeFieldsAndIngredientQuantities() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        var cheese = saveIngredient("cheese");
+        var recipeDto = restClient.post()
+                .uri("/api/v1/recipe/")
+                .body(objectMapper.writeValueAsString(new RecipeDto(null, "aRecipe", "do stuff", 2,
+                        List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())),
+                        "https://example.com/recipe")))
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(recipeDto).isNotNull();
+
+        var patched = restClient.patch()
+                .uri("/api/v1/recipe/" + recipeDto.getId())
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .body("{\"name\": \"renamed\", \"servings\": null}")
+                .retrieve()
+                .body(RecipeDto.class);
+
+        assertThat(patched).isNotNull();
+        assertThat(patched.getName()).isEqualTo("renamed");
+        assertThat(patched.getServings()).isNull();
+        assertThat(patched.getMethod()).isEqualTo("do stuff");
+        assertThat(patched.getSourceUrl()).isEqualTo("https://example.com/recipe");
+        assertThat(patched.getIngredientQuantities()).hasSize(1);
+
+        var withCheese = restClient.post()
+                .uri("/api/v1/recipe/" + recipeDto.getId() + "/ingredient-quantity")
+                .body(objectMapper.writeValueAsString(new IngredientQuantityDto(null, 2d, cheese, null)))
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(withCheese).isNotNull();
+        assertThat(withCheese.getIngredientQuantities()).hasSize(2);
+
+        var basilQuantityId = recipeDto.getIngredientQuantities().getFirst().getId();
+        var updated = restClient.put()
+                .uri("/api/v1/recipe/" + recipeDto.getId() + "/ingredient-quantity/" + basilQuantityId)
+                .body(objectMapper.writeValueAsString(new IngredientQuantityDto(basilQuantityId, 5d, basil, null)))
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(updated).isNotNull();
+        assertThat(updated.getIngredientQuantities())
+                .filteredOn(iq -> iq.getId().equals(basilQuantityId))
+                .singleElement()
+                .satisfies(iq -> assertThat(iq.getQuantity()).isEqualTo(5d));
+
+        var removed = restClient.delete()
+                .uri("/api/v1/recipe/" + recipeDto.getId() + "/ingredient-quantity/" + basilQuantityId)
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(removed).isNotNull();
+        assertThat(removed.getIngredientQuantities()).hasSize(1);
+        assertThat(removed.getIngredientQuantities().getFirst().getIngredient().getName()).isEqualTo("cheese");
+    }
+
+    @Test
+    public void patchRejectsIngredientListChanges() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        var recipeDto = restClient.post()
+                .uri("/api/v1/recipe/")
+                .body(objectMapper.writeValueAsString(new RecipeDto(null, "aRecipe", "do stuff", 2,
+                        List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())), null)))
+                .retrieve()
+                .body(RecipeDto.class);
+        assertThat(recipeDto).isNotNull();
+
+        assertThatThrownBy(() -> restClient.patch()
+                .uri("/api/v1/recipe/" + recipeDto.getId())
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .body("{\"ingredientQuantities\": []}")
+                .retrieve()
+                .toBodilessEntity())
+                .isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
+                        .isEqualTo(HttpStatusCode.valueOf(400)));
+
+        assertThatThrownBy(() -> restClient.patch()
+                .uri("/api/v1/recipe/" + recipeDto.getId())
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .body("{\"servings\": 3.5}")
+                .retrieve()
+                .toBodilessEntity())
+                .isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
+                        .isEqualTo(HttpStatusCode.valueOf(400)));
+    }
+
+    @Test
+    public void supportsConditionalRequestsByVersion() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        var created = restClient.post()
+                .uri("/api/v1/recipe/")
+                .body(objectMapper.writeValueAsString(new RecipeDto(null, "aRecipe", "do stuff", 2,
+                        List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())), null)))
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        var recipe = created.getBody();
+        assertThat(recipe).isNotNull();
+        var etag = created.getHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        var notModified = restClient.get()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .retrieve()
+                .toEntity(String.class);
+        assertThat(notModified.getStatusCode()).isEqualTo(HttpStatusCode.valueOf(304));
+        assertThat(notModified.getBody()).isNull();
+
+        // Changing only a quantity row must still move the ETag on.
+        var quantity = recipe.getIngredientQuantities().getFirst();
+        var updated = restClient.put()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .body(objectMapper.writeValueAsString(new RecipeDto(recipe.getId(), recipe.getName(),
+                        recipe.getMethod(), recipe.getServings(),
+                        List.of(new IngredientQuantityDto(quantity.getId(), 3d, basil, basil.getDefaultUnit())),
+                        null)))
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        assertThat(updated.getHeaders().getETag()).isNotNull().isNotEqualTo(etag);
+
+        var staleUpdate = new RecipeDto(recipe.getId(), "lost update", recipe.getMethod(),
+                recipe.getServings(), recipe.getIngredientQuantities(), null);
+        assertThatThrownBy(() -> restClient.put()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .body(objectMapper.writeValueAsString(staleUpdate))
+                .retrieve()
+                .toBodilessEntity())
+                .isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
+                        .isEqualTo(HttpStatusCode.valueOf(412)));
+
+        assertThatThrownBy(() -> restClient.delete()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .header(HttpHeaders.IF_MATCH, etag)
+                .retrieve()
+                .toBodilessEntity())
+                .isInstanceOf(HttpClientErrorException.class)
+                .satisfies(e -> assertThat(((HttpClientErrorException) e).getStatusCode())
+                        .isEqualTo(HttpStatusCode.valueOf(412)));
+    }
+
+    @Test
+    public void eachSingleRecipeWriteBumpsTheVersionOnce() throws JsonProcessingException {
+        var basil = saveIngredient("basil");
+        var created = restClient.post()
+                .uri("/api/v1/recipe/")
+                .body(objectMapper.writeValueAsString(new RecipeDto(null, "aRecipe", "do stuff", 2,
+                        List.of(new IngredientQuantityDto(null, 1d, basil, basil.getDefaultUnit())), null)))
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        var recipe = created.getBody();
+        assertThat(recipe).isNotNull();
+        long version = versionOf(recipe.getId());
+        assertThat(created.getHeaders().getETag()).isEqualTo(RecipeETags.of(version));
+
+        var put = restClient.put()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .body(objectMapper.writeValueAsString(new RecipeDto(recipe.getId(), recipe.getName(),
+                        "do other stuff", recipe.getServings(), recipe.getIngredientQuantities(), null)))
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        assertThat(versionOf(recipe.getId())).isEqualTo(version + 1);
+        assertThat(put.getHeaders().getETag()).isEqualTo(RecipeETags.of(version + 1));
+
+        var patch = restClient.patch()
+                .uri("/api/v1/recipe/" + recipe.getId())
+                .contentType(MediaType.valueOf("application/merge-patch+json"))
+                .body("{\"name\": \"renamed\"}")
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        assertThat(versionOf(recipe.getId())).isEqualTo(version + 2);
+        assertThat(patch.getHeaders().getETag()).isEqualTo(RecipeETags.of(version + 2));
+
+        var quantityId = recipe.getIngredientQuantities().getFirst().getId();
+        var quantity = restClient.put()
+                .uri("/api/v1/recipe/" + recipe.getId() + "/ingredient-quantity/" + quantityId)
+                .body(objectMapper.writeValueAsString(new IngredientQuantityDto(quantityId, 4d, basil, null)))
+                .retrieve()
+                .toEntity(RecipeDto.class);
+        assertThat(versionOf(recipe.getId())).isEqualTo(version + 3);
+        assertThat(quantity.getHeaders().getETag()).isEqualTo(RecipeETags.of(version + 3));
+    }
+
+    private long versionOf(Long recipeId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM recipe WHERE id = ?", Long.class, recipeId);
+    }
+
     private IngredientDto saveIngredient(String name) throws JsonProcessingException {
         var unit = new UnitDto(1L, "Gram", "g", null, 1.0);
         var ingredient = new IngredientDto(name, null, unit);
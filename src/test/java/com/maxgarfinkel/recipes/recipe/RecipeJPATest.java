@@ -1,23 +1,35 @@
 package com.maxgarfinkel.recipes.recipe;
 
+import com.maxgarfinkel.recipes.CatalogueVersion;
 import com.maxgarfinkel.recipes.ingredient.Ingredient;
 import com.maxgarfinkel.recipes.ingredient.IngredientRepository;
+import com.maxgarfinkel.recipes.ingredient.IngredientService;
 import com.maxgarfinkel.recipes.unit.Unit;
 import com.maxgarfinkel.recipes.unit.UnitRepository;
+import com.maxgarfinkel.recipes.unit.UnitService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest()
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @AutoConfigureTestDatabase(replace= AutoConfigureTestDatabase.Replace.NONE)
+@Import({RecipeService.class, IngredientService.class, UnitService.class, CatalogueVersion.class})
 class RecipeJPATest {
 
     @Autowired
@@ -32,6 +44,15 @@ class RecipeJPATest {
     @Autowired
     protected JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    RecipeService recipeService;
+
     @BeforeEach
     void setUp() {
         jdbcTemplate.execute("TRUNCATE TABLE ingredient_alias, ingredient, ingredient_quantity, recipe");
@@ -70,6 +91,61 @@ class RecipeJPATest {
         ).hasSize(0);
     }
 
+    @Test
+    void methodOnlyUpdateIssuesSingleRecipeUpdate() {
+        var recipe = insertRecipe();
+        entityManager.flush();
+        entityManager.clear();
+
+        recipe = recipeRepository.findById(recipe.getId()).orElseThrow();
+        var dto = recipe.toDto();
+        var ingredientMap = ingredientRepository.findAllById(
+                        dto.getIngredientQuantities().stream().map(iq -> iq.getIngredient().getId()).toList())
+                .stream()
+                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+        var unitMap = unitRepository.findAllById(
+                        dto.getIngredientQuantities().stream().map(iq -> iq.getUnit().getId()).toList())
+                .stream()
+                .collect(Collectors.toMap(Unit::getId, Function.identity()));
+        var edited = new RecipeDto(dto.getId(), dto.getName(), "fixed a typo", dto.getServings(),
+                dto.getIngredientQuantities(), dto.getSourceUrl());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        recipe.update(edited, ingredientMap, unitMap);
+        entityManager.flush();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isZero();
+        assertThat(statistics.getEntityDeleteCount()).isZero();
+        assertThat(jdbcTemplate.queryForList("select * from ingredient_quantity")).hasSize(1);
+    }
+
+    @Test
+    void methodOnlyUpdateThroughTheServiceIssuesSingleRecipeUpdate() {
+        var recipe = insertRecipe();
+        entityManager.flush();
+        entityManager.clear();
+        long version = recipe.getVersion();
+
+        // Loads the recipe and its quantities, so the update below finds them in the session.
+        var dto = recipeService.getRecipe(recipe.getId()).recipe();
+        var edited = new RecipeDto(dto.getId(), dto.getName(), "fixed a typo", dto.getServings(),
+                dto.getIngredientQuantities(), dto.getSourceUrl());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        var updated = recipeService.updateRecipe(recipe.getId(), edited, version);
+
+        // Besides the ingredient and unit lookups, the only statement is the one recipe UPDATE:
+        // no separate version bump, so the version moves on exactly once.
+        assertThat(statistics.getPrepareStatementCount() - statistics.getQueryExecutionCount()).isEqualTo(1);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+        assertThat(updated.version()).isEqualTo(version + 1);
+        assertThat(jdbcTemplate.queryForObject("select version from recipe", Long.class)).isEqualTo(version + 1);
+    }
+
     private Recipe insertRecipe() {
         Ingredient ingredient = new Ingredient();
         ingredient.setName("basil");
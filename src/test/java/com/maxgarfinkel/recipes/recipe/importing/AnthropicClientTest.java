@@ -0,0 +1,213 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AnthropicClientTest {
+
+    private static final String OK_BODY =
+            "{\"content\":[{\"type\":\"text\",\"text\":\"hi\"}],\"usage\":{\"input_tokens\":3,\"output_tokens\":1}}";
+
+    private static final String SSE_BODY = """
+            event: message_start
+            data: {"type":"message_start","message":{"usage":{"input_tokens":5,"output_tokens":1}}}
+
+            event: content_block_delta
+            data: {"type":"content_block_delta","index":0,"delta":{"type":"text_delta","text":"{\\"name\\":"}}
+
+            event: ping
+            data: {"type":"ping"}
+
+            event: content_block_delta
+            data: {"type":"content_block_delta","index":0,"delta":{"type":"text_delta","text":"\\"Soup\\"}"}}
+
+            event: message_delta
+            data: {"type":"message_delta","delta":{"stop_reason":"end_turn"},"usage":{"output_tokens":7}}
+
+            event: message_stop
+            data: {"type":"message_stop"}
+
+            """;
+
+    private HttpServer server;
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private AnthropicClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/messages", exchange -> {
+            requests.incrementAndGet();
+            boolean stream = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)
+                    .contains("\"stream\":true");
+            int status = statuses.isEmpty() ? 200 : statuses.poll();
+            String okBody = stream ? SSE_BODY : OK_BODY;
+            byte[] body = (status == 200 ? okBody : "{\"type\":\"error\"}").getBytes(StandardCharsets.UTF_8);
+            if (status == 429) {
+                exchange.getResponseHeaders().set("retry-after", "0");
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        client = new AnthropicClient(RestClient.builder(), new ObjectMapper(),
+                new ImportMetrics(new SimpleMeterRegistry()),
+                new AnthropicRateLimiter(6000, 100, Duration.ofSeconds(5)),
+                circuitBreakers, BulkheadRegistry.ofDefaults(),
+                "test-key", "http://127.0.0.1:" + server.getAddress().getPort(),
+                3, Duration.ofMillis(1), Duration.ofMillis(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void retriesRateLimitAndServerErrorsThenSucceeds() {
+        statuses.add(429);
+        statuses.add(529);
+
+        JsonNode response = client.sendMessages(Map.of("model", "m"));
+
+        assertThat(response.path("content").path(0).path("text").asText()).isEqualTo("hi");
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        statuses.add(500);
+        statuses.add(500);
+        statuses.add(500);
+
+        assertThatThrownBy(() -> client.sendMessages(Map.of("model", "m")))
+                .isInstanceOf(AnthropicApiException.class)
+                .hasMessageContaining("Server error");
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        statuses.add(400);
+
+        assertThatThrownBy(() -> client.sendMessages(Map.of("model", "m")))
+                .isInstanceOf(AnthropicApiException.class);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesRefusedConnectionsAndCountsEachAgainstTheBreaker() throws IOException {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            closedPort = socket.getLocalPort();
+        }
+        AnthropicClient unreachable = new AnthropicClient(RestClient.builder(), new ObjectMapper(),
+                new ImportMetrics(new SimpleMeterRegistry()),
+                new AnthropicRateLimiter(6000, 100, Duration.ofSeconds(5)),
+                circuitBreakers, BulkheadRegistry.ofDefaults(),
+                "test-key", "http://127.0.0.1:" + closedPort,
+                3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+        assertThatThrownBy(() -> unreachable.sendMessages(Map.of("model", "m")))
+                .isInstanceOf(AnthropicApiException.class);
+        var metrics = circuitBreakers.circuitBreaker(ResilienceConfig.ANTHROPIC_TEXT).getMetrics();
+        assertThat(metrics.getNumberOfFailedCalls()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesOnlyFailuresToConnect() {
+        assertThat(AnthropicClient.isConnectFailure(
+                new ResourceAccessException("refused", new ConnectException("Connection refused")))).isTrue();
+        assertThat(AnthropicClient.isConnectFailure(
+                new ResourceAccessException("timeout", new SocketTimeoutException("Read timed out")))).isFalse();
+        assertThat(AnthropicClient.isConnectFailure(
+                new ResourceAccessException("reset", new SocketException("Connection reset")))).isFalse();
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingAnthropic() {
+        circuitBreakers.circuitBreaker(ResilienceConfig.ANTHROPIC_TEXT).transitionToOpenState();
+
+        assertThatThrownBy(() -> client.sendMessages(Map.of("model", "m")))
+                .isInstanceOf(AnthropicUnavailableException.class);
+        assertThat(requests.get()).isZero();
+
+        // The vision lane has its own breaker and is unaffected.
+        assertThat(client.sendMessages(Map.of("model", "m"), AnthropicClient.Lane.VISION)).isNotNull();
+    }
+
+    @Test
+    void streamsTextDeltasAndRetriesBeforeTheStreamStarts() {
+        statuses.add(529);
+        List<String> deltas = new ArrayList<>();
+
+        String text = client.streamMessages(Map.of("model", "m"), AnthropicClient.Lane.TEXT, deltas::add);
+
+        assertThat(deltas).containsExactly("{\"name\":", "\"Soup\"}");
+        assertThat(text).isEqualTo("{\"name\":\"Soup\"}");
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledStreamIsNotCountedAsAnthropicFailure() {
+        assertThatThrownBy(() -> client.streamMessages(Map.of("model", "m"), AnthropicClient.Lane.TEXT, delta -> {
+            throw new ImportCancelledException("gone", null);
+        })).isInstanceOf(ImportCancelledException.class);
+
+        var metrics = circuitBreakers.circuitBreaker(ResilienceConfig.ANTHROPIC_TEXT).getMetrics();
+        assertThat(metrics.getNumberOfFailedCalls()).isZero();
+        assertThat(metrics.getNumberOfBufferedCalls()).isZero();
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void interruptDuringBackoffCancelsTheCallAndKeepsTheFlag() {
+        statuses.add(500);
+        Thread.currentThread().interrupt();
+
+        assertThatThrownBy(() -> client.sendMessages(Map.of("model", "m")))
+                .isInstanceOf(ImportCancelledException.class)
+                .hasCauseInstanceOf(InterruptedException.class);
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void backoffNeverUndercutsRetryAfter() {
+        assertThat(client.backoff(1, "2")).isGreaterThanOrEqualTo(Duration.ofSeconds(2));
+        assertThat(client.backoff(10, null)).isLessThanOrEqualTo(Duration.ofMillis(5));
+    }
+}
@@ -0,0 +1,131 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.maxgarfinkel.recipes.recipe.importing.AnthropicRateLimiter.Priority.BULK;
+import static com.maxgarfinkel.recipes.recipe.importing.AnthropicRateLimiter.Priority.INTERACTIVE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnthropicRateLimiterTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Instant wallClock = Instant.parse("2026-01-01T12:00:00Z");
+    private AnthropicRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // 60 requests per minute = one permit per second, burst of 2
+        limiter = new AnthropicRateLimiter(60, 2, Duration.ofSeconds(30), nanos::get,
+                Clock.fixed(wallClock, ZoneOffset.UTC));
+    }
+
+    @Test
+    void allowsBurstThenRefillsAtConfiguredRate() {
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isZero();
+        assertThat(limiter.tryAcquire(BULK)).isZero();
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isCloseTo(TimeUnit.SECONDS.toNanos(1), within());
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isZero();
+    }
+
+    @Test
+    void retryAfterPausesAllCallers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+        limiter.onResponse(headers);
+
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isZero();
+    }
+
+    @Test
+    void exhaustedServerQuotaPausesUntilReset() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("anthropic-ratelimit-input-tokens-remaining", "0");
+        headers.set("anthropic-ratelimit-input-tokens-reset", wallClock.plusSeconds(3).toString());
+        limiter.onResponse(headers);
+
+        assertThat(limiter.tryAcquire(BULK)).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+    }
+
+    @Test
+    void remainingRequestsCapLocalPermits() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("anthropic-ratelimit-requests-remaining", "1");
+        headers.set("anthropic-ratelimit-requests-reset", wallClock.plusSeconds(60).toString());
+        limiter.onResponse(headers);
+
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isZero();
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isPositive();
+    }
+
+    @Test
+    void bulkWaitsWhileInteractiveCallersAreQueued() throws Exception {
+        limiter.tryAcquire(INTERACTIVE);
+        limiter.tryAcquire(INTERACTIVE);
+        Thread interactive = new Thread(() -> limiter.acquire(INTERACTIVE));
+        Thread bulk = new Thread(() -> limiter.acquire(BULK));
+        interactive.start();
+        awaitWaiting(interactive);
+        bulk.start();
+        awaitWaiting(bulk);
+
+        // One permit refills: it goes to the queued interactive caller, not the bulk one.
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.onResponse(new HttpHeaders());
+        interactive.join(5_000);
+        assertThat(interactive.isAlive()).isFalse();
+        assertThat(bulk.isAlive()).isTrue();
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.onResponse(new HttpHeaders());
+        bulk.join(5_000);
+        assertThat(bulk.isAlive()).isFalse();
+    }
+
+    @Test
+    void interactiveCallerIsNotHeldBackBySingleImportsStillQueued() throws Exception {
+        limiter.tryAcquire(INTERACTIVE);
+        limiter.tryAcquire(INTERACTIVE);
+        Thread singleImport = new Thread(() -> limiter.acquire(INTERACTIVE));
+        singleImport.start();
+        awaitWaiting(singleImport);
+
+        // A permit frees up while a single import is still queued. A preview page queued as
+        // interactive competes for it on equal terms; queued as bulk it would sit out every
+        // refill for as long as single imports keep arriving.
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire(BULK)).isPositive();
+        assertThat(limiter.tryAcquire(INTERACTIVE)).isZero();
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.onResponse(new HttpHeaders());
+        singleImport.join(5_000);
+        assertThat(singleImport.isAlive()).isFalse();
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            if (System.nanoTime() > deadline) throw new AssertionError(thread + " never started waiting");
+            Thread.sleep(5);
+        }
+    }
+
+    private static Offset<Long> within() {
+        return Offset.offset(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -1,5 +1,6 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -12,7 +13,8 @@ class CompositeRecipeExtractorTest {
 
     private final RecipeExtractor first = mock(RecipeExtractor.class);
     private final RecipeExtractor second = mock(RecipeExtractor.class);
-    private final CompositeRecipeExtractor composite = new CompositeRecipeExtractor(List.of(first, second));
+    private final CompositeRecipeExtractor composite = new CompositeRecipeExtractor(List.of(first, second),
+            new ImportMetrics(new SimpleMeterRegistry()));
 
     @Test
     void returnsFirstSuccessfulResult() {
@@ -0,0 +1,64 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DraftMergerTest {
+
+    @Test
+    void takesNameAndServingsFromTheFirstPageThatHasThem() {
+        RecipeImportDraft first = page("Lasagne", null, "Make the ragu.");
+        RecipeImportDraft second = page("Lasagne (continued)", 6, "Layer and bake.");
+
+        RecipeImportDraft merged = DraftMerger.merge(List.of(first, second));
+
+        assertThat(merged.getName()).isEqualTo("Lasagne");
+        assertThat(merged.getServings()).isEqualTo(6);
+        assertThat(merged.getExtractionSource()).isEqualTo("VISION");
+    }
+
+    @Test
+    void continuesSentencesSplitAcrossPages() {
+        RecipeImportDraft first = page("Bread", 1, "Knead the dough and leave it");
+        RecipeImportDraft second = page("", null, "to rise for an hour. Bake.");
+        RecipeImportDraft third = page("", null, "Serve warm.");
+
+        RecipeImportDraft merged = DraftMerger.merge(List.of(first, second, third));
+
+        assertThat(merged.getMethod())
+                .isEqualTo("Knead the dough and leave it to rise for an hour. Bake.\n\nServe warm.");
+    }
+
+    @Test
+    void appendsIngredientLinesInPageOrderWithoutRepeats() {
+        RecipeImportDraft first = page("Soup", 4, null, "1 onion", "2 carrots");
+        RecipeImportDraft second = page("Soup", 4, null, "2 Carrots ", "1 l stock");
+
+        RecipeImportDraft merged = DraftMerger.merge(List.of(first, second));
+
+        assertThat(merged.getIngredientLines())
+                .extracting(RecipeImportDraft.ImportedIngredientLine::getRawText)
+                .containsExactly("1 onion", "2 carrots", "1 l stock");
+        assertThat(merged.getMethod()).isNull();
+    }
+
+    private static RecipeImportDraft page(String name, Integer servings, String method, String... lines) {
+        RecipeImportDraft draft = new RecipeImportDraft();
+        draft.setName(name);
+        draft.setServings(servings);
+        draft.setMethod(method);
+        draft.setExtractionSource("VISION");
+        List<RecipeImportDraft.ImportedIngredientLine> ingredientLines = new ArrayList<>();
+        for (String rawText : lines) {
+            RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+            line.setRawText(rawText);
+            ingredientLines.add(line);
+        }
+        draft.setIngredientLines(ingredientLines);
+        return draft;
+    }
+}
@@ -0,0 +1,171 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImagePreprocessorTest {
+
+    private final ImagePreprocessor preprocessor =
+            new ImagePreprocessor(1568, 0.85f, new ImportMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void downscalesLargeImagesToTheMaxEdgeAsJpeg() throws IOException {
+        byte[] png = encode(new BufferedImage(4032, 3024, BufferedImage.TYPE_INT_RGB), "png");
+
+        ImagePreprocessor.PreparedImage prepared = preprocessor.prepare(png, "image/png");
+
+        BufferedImage result = decode(prepared.data());
+        assertThat(prepared.mediaType()).isEqualTo("image/jpeg");
+        assertThat(result.getWidth()).isEqualTo(1568);
+        assertThat(result.getHeight()).isEqualTo(1176);
+        assertThat(prepared.data().length).isLessThan(png.length);
+    }
+
+    @Test
+    void subsamplesLargeImagesWhileDecodingButNeverBelowTheMaxEdge() throws IOException {
+        assertThat(preprocessor.subsampling(1568)).isEqualTo(1);
+        assertThat(preprocessor.subsampling(3135)).isEqualTo(1);
+        assertThat(preprocessor.subsampling(4032)).isEqualTo(2);
+        assertThat(preprocessor.subsampling(4704)).isEqualTo(3);
+
+        BufferedImage decoded = preprocessor.decode(
+                encode(new BufferedImage(4800, 1200, BufferedImage.TYPE_INT_RGB), "png"));
+
+        // Every third pixel, not the full 4800 wide, and still at least the target width.
+        assertThat(decoded.getWidth()).isEqualTo(1600);
+        assertThat(decoded.getHeight()).isEqualTo(400);
+    }
+
+    @Test
+    void keepsSmallImagesAtTheirSize() throws IOException {
+        byte[] png = encode(new BufferedImage(800, 600, BufferedImage.TYPE_INT_ARGB), "png");
+
+        BufferedImage result = decode(preprocessor.prepare(png, "image/png").data());
+
+        assertThat(result.getWidth()).isEqualTo(800);
+        assertThat(result.getHeight()).isEqualTo(600);
+    }
+
+    @Test
+    void rotatesUprightAndDropsExif() throws IOException {
+        // Left half red, right half blue; orientation 6 means "rotate 90° clockwise to view".
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 100, 100);
+        g.setColor(Color.BLUE);
+        g.fillRect(100, 0, 100, 100);
+        g.dispose();
+        byte[] jpeg = withExifOrientation(encode(image, "jpg"), 6);
+        assertThat(ImagePreprocessor.exifOrientation(jpeg)).isEqualTo(6);
+
+        byte[] prepared = preprocessor.prepare(jpeg, "image/jpeg").data();
+
+        BufferedImage result = decode(prepared);
+        assertThat(result.getWidth()).isEqualTo(100);
+        assertThat(result.getHeight()).isEqualTo(200);
+        assertThat(new Color(result.getRGB(50, 20)).getRed()).isGreaterThan(200);
+        assertThat(new Color(result.getRGB(50, 180)).getBlue()).isGreaterThan(200);
+        assertThat(ImagePreprocessor.exifOrientation(prepared)).isEqualTo(1);
+    }
+
+    @Test
+    void hashesResizedCopiesCloseTogetherAndDifferentImagesFarApart() throws IOException {
+        BufferedImage page = page(2000, 1500, Color.DARK_GRAY);
+        BufferedImage smaller = new BufferedImage(1000, 750, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = smaller.createGraphics();
+        g.drawImage(page, 0, 0, 1000, 750, null);
+        g.dispose();
+        BufferedImage other = page(2000, 1500, Color.LIGHT_GRAY);
+        Graphics2D o = other.createGraphics();
+        o.setColor(Color.BLACK);
+        o.fillOval(200, 100, 1400, 1200);
+        o.dispose();
+
+        ImagePreprocessor.PreparedImage original = preprocessor.prepare(encode(page, "png"), "image/png");
+        ImagePreprocessor.PreparedImage resized = preprocessor.prepare(encode(smaller, "jpg"), "image/jpeg");
+        ImagePreprocessor.PreparedImage different = preprocessor.prepare(encode(other, "png"), "image/png");
+
+        assertThat(PerceptualHash.distance(original.hash(), resized.hash())).isLessThanOrEqualTo(6);
+        assertThat(PerceptualHash.distance(original.hash(), different.hash())).isGreaterThan(6);
+        assertThat(PerceptualHash.distance(original.detailHash(), resized.detailHash())).isLessThanOrEqualTo(200);
+        assertThat(PerceptualHash.distance(original.detailHash(), different.detailHash())).isGreaterThan(200);
+        assertThat(original.sha256()).isNotEqualTo(resized.sha256()).hasSize(64);
+    }
+
+    @Test
+    void identicalUploadsPrepareToIdenticalBytes() throws IOException {
+        byte[] png = encode(page(2000, 1500, Color.DARK_GRAY), "png");
+
+        assertThat(preprocessor.prepare(png, "image/png").sha256())
+                .isEqualTo(preprocessor.prepare(png.clone(), "image/png").sha256());
+    }
+
+    @Test
+    void passesUndecodableImagesThrough() {
+        byte[] webp = {'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'};
+
+        ImagePreprocessor.PreparedImage prepared = preprocessor.prepare(webp, "image/webp");
+
+        assertThat(prepared.data()).isSameAs(webp);
+        assertThat(prepared.mediaType()).isEqualTo("image/webp");
+        assertThat(prepared.hash()).isNull();
+        assertThat(prepared.sha256()).hasSize(64);
+    }
+
+    /** A page-like test image: light background with dark horizontal bands of varying length. */
+    private static BufferedImage page(int width, int height, Color ink) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(ink);
+        for (int i = 0; i < 12; i++) {
+            int lineWidth = width / 4 + (i * 37 % 11) * width / 20;
+            g.fillRect(width / 10, height / 14 * (i + 1), lineWidth, height / 40);
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage decode(byte[] data) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    /** Inserts a big-endian EXIF APP1 segment holding just the orientation tag after the SOI marker. */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8,              // header, IFD0 at offset 8
+                0, 1,                                      // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                0, 0, 0, 0                                 // no next IFD
+        };
+        int length = 2 + 6 + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+        out.writeBytes(tiff);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
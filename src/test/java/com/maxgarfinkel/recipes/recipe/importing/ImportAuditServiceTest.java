@@ -0,0 +1,83 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ClassPathResource;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImportAuditServiceTest {
+
+    private final ImportAuditRepository repository = mock(ImportAuditRepository.class);
+
+    private ImportAuditService service(boolean enabled) {
+        return service(enabled, Duration.ofDays(30));
+    }
+
+    private ImportAuditService service(boolean enabled, Duration retention) {
+        return new ImportAuditService(repository, enabled, retention, new ClassPathResource("prompts/llm-extraction-v3.txt"));
+    }
+
+    private static ImportAuditService.LlmCall call() throws Exception {
+        return new ImportAuditService.LlmCall("https://example.com/cake", "<html><body>Cake</body></html>",
+                "claude-haiku-4-5-20251001", "Cake", "{\"name\":\"Cake\"}", true, Duration.ofMillis(1234),
+                new ObjectMapper().readTree("{\"input_tokens\": 900, \"output_tokens\": 120, \"cache_read_input_tokens\": 2048}"));
+    }
+
+    @Test
+    void record_storesCompressedPageWithPromptVersionAndUsage() throws Exception {
+        service(true).record(call());
+
+        ArgumentCaptor<ImportAudit> saved = ArgumentCaptor.forClass(ImportAudit.class);
+        verify(repository).save(saved.capture());
+        ImportAudit audit = saved.getValue();
+        assertThat(audit.getHtml()).isEqualTo("<html><body>Cake</body></html>");
+        assertThat(audit.getPromptVersion()).isEqualTo("llm-extraction-v3");
+        assertThat(audit.getRequestHash()).isEqualTo(ImportAuditService.requestHash("Cake")).hasSize(64);
+        assertThat(audit.getLatencyMs()).isEqualTo(1234);
+        assertThat(audit.getInputTokens()).isEqualTo(900);
+        assertThat(audit.getCacheReadInputTokens()).isEqualTo(2048);
+        assertThat(audit.getCacheCreationInputTokens()).isNull();
+    }
+
+    @Test
+    void record_swallowsStorageFailures() throws Exception {
+        when(repository.save(any())).thenThrow(new IllegalStateException("database down"));
+
+        service(true).record(call());
+    }
+
+    @Test
+    void record_doesNothingWhenDisabled() throws Exception {
+        service(false).record(call());
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void purgeExpired_deletesAuditsOlderThanTheRetention() {
+        Instant before = Instant.now();
+
+        service(true).purgeExpired();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).deleteCreatedBefore(cutoff.capture());
+        assertThat(cutoff.getValue()).isBetween(before.minus(Duration.ofDays(30)), Instant.now().minus(Duration.ofDays(30)));
+    }
+
+    @Test
+    void purgeExpired_keepsEverythingWithoutARetention() {
+        service(true, Duration.ZERO).purgeExpired();
+
+        verify(repository, never()).deleteCreatedBefore(any());
+    }
+}
@@ -2,6 +2,7 @@ package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.maxgarfinkel.recipes.SecurityConfig;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasDto;
 import com.maxgarfinkel.recipes.user.AppUserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,18 +12,22 @@ import org.springframework.context.annotation.Import;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ImportController.class)
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, ImportStreamExecutor.class})
 @WithMockUser
 class ImportControllerWebMvcTest {
 
@@ -88,4 +93,54 @@ class ImportControllerWebMvcTest {
                         jsonPath("$.detail").value("Could not extract recipe")
                 );
     }
+
+    @Test
+    void streamsPartialFieldsThenTheDraft() throws Exception {
+        RecipeImportDraft draft = new RecipeImportDraft();
+        draft.setName("Pasta");
+        draft.setIngredientLines(List.of());
+        given(importService.streamFromUrl(anyString(), any())).willAnswer(invocation -> {
+            DraftListener listener = invocation.getArgument(1);
+            listener.onName("Pasta");
+            listener.onServings(4);
+            return draft;
+        });
+
+        MvcResult result = mockMvc.perform(post("/api/v1/recipe/import/preview/stream")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("url", "https://example.com"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentAsString())
+                .containsSubsequence("event:name", "\"Pasta\"", "event:servings", "4", "event:draft");
+    }
+
+    @Test
+    void streamEndsWithErrorEventWhenExtractionFails() throws Exception {
+        given(importService.streamFromUrl(anyString(), any()))
+                .willThrow(new RecipeImportException("Could not extract recipe"));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/recipe/import/preview/stream")
+                        .contentType(APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("url", "https://example.com"))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentAsString())
+                .contains("event:error")
+                .contains("Could not extract recipe");
+    }
+
+    @Test
+    void confirmPassesLinesToService() throws Exception {
+        mockMvc.perform(post("/api/v1/recipe/import/confirm")
+                        .contentType(APPLICATION_JSON)
+                        .content("[{\"aliasText\": \"plain flour\", \"ingredientId\": 1, \"unitId\": 2}]"))
+                .andExpect(status().isNoContent());
+
+        verify(importService).confirm(List.of(new IngredientAliasDto("plain flour", 1L, 2L)));
+    }
 }
@@ -1,10 +1,14 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
+import com.maxgarfinkel.recipes.CatalogueVersion;
+import com.maxgarfinkel.recipes.ingredient.AliasTarget;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasDto;
 import com.maxgarfinkel.recipes.ingredient.IngredientAliasService;
 import com.maxgarfinkel.recipes.ingredient.IngredientDto;
 import com.maxgarfinkel.recipes.ingredient.IngredientService;
 import com.maxgarfinkel.recipes.unit.UnitDto;
 import com.maxgarfinkel.recipes.unit.UnitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -14,13 +18,18 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ImportServiceTest {
 
     private CompositeRecipeExtractor recipeExtractor;
+    private VisionRecipeExtractor visionRecipeExtractor;
+    private IngredientAliasService ingredientAliasService;
     private ImportService importService;
+    private SimpleMeterRegistry meterRegistry;
 
     private final UnitDto gramUnit = new UnitDto(1L, "Gram", "g", null, 1.0);
     private final UnitDto cupUnit = new UnitDto(2L, "Cup", "cup", null, 1.0);
@@ -31,16 +40,21 @@ class ImportServiceTest {
     void setUp() {
         UrlFetcher urlFetcher = mock(UrlFetcher.class);
         recipeExtractor = mock(CompositeRecipeExtractor.class);
-        VisionRecipeExtractor visionRecipeExtractor = mock(VisionRecipeExtractor.class);
+        visionRecipeExtractor = mock(VisionRecipeExtractor.class);
         UnitService unitService = mock(UnitService.class);
         IngredientService ingredientService = mock(IngredientService.class);
-        IngredientAliasService ingredientAliasService = mock(IngredientAliasService.class);
-        importService = new ImportService(urlFetcher, recipeExtractor, visionRecipeExtractor, unitService, ingredientService, ingredientAliasService);
+        ingredientAliasService = mock(IngredientAliasService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ImportMetrics metrics = new ImportMetrics(meterRegistry);
+        IngredientResolver ingredientResolver = new IngredientResolver(unitService, ingredientService,
+                ingredientAliasService, new CatalogueVersion(), metrics);
+        importService = new ImportService(urlFetcher, recipeExtractor, visionRecipeExtractor, ingredientResolver,
+                ingredientAliasService, metrics);
 
         when(urlFetcher.fetch(anyString())).thenReturn("<html/>");
         when(unitService.getUnitsAsDtos()).thenReturn(List.of(gramUnit, cupUnit, noAbbrevUnit));
         when(ingredientService.getAllAsDto()).thenReturn(List.of(flourIngredient));
-        when(ingredientAliasService.findAll()).thenReturn(List.of());
+        when(ingredientAliasService.findTarget(any())).thenReturn(Optional.empty());
     }
 
     private RecipeImportDraft draftWithLine(String rawText, Double quantity, String unitHint, String ingredientHint) {
@@ -65,6 +79,77 @@ class ImportServiceTest {
                 .isInstanceOf(RecipeImportException.class);
     }
 
+    @Test
+    void mergesImagePagesAndSkipsOnesWithoutARecipe() {
+        byte[] page1 = {1};
+        byte[] page2 = {2};
+        byte[] page3 = {3};
+        RecipeImportDraft first = draftWithLine("100 Gram flour", 100.0, "Gram", "flour");
+        first.setMethod("Mix the flour and");
+        RecipeImportDraft third = draftWithLine("1 cup water", 1.0, "cup", "water");
+        third.setName("Test (continued)");
+        third.setMethod("water.");
+        when(visionRecipeExtractor.extractPage(page1, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE)).thenReturn(Optional.of(first));
+        when(visionRecipeExtractor.extractPage(page2, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE)).thenReturn(Optional.empty());
+        when(visionRecipeExtractor.extractPage(page3, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE)).thenReturn(Optional.of(third));
+
+        var result = importService.importFromImages(List.of(
+                new ImageUpload(page1, "image/jpeg"),
+                new ImageUpload(page2, "image/jpeg"),
+                new ImageUpload(page3, "image/jpeg")));
+
+        assertThat(result.getName()).isEqualTo("Test");
+        assertThat(result.getMethod()).isEqualTo("Mix the flour and water.");
+        assertThat(result.getIngredientLines()).hasSize(2);
+        assertThat(result.getIngredientLines().getFirst().getResolvedIngredient()).isEqualTo(flourIngredient);
+    }
+
+    @Test
+    void multiPagePreviewQueuesAlongsideSingleImportsRatherThanBehindThem() {
+        when(visionRecipeExtractor.extract(any(), anyString(), any()))
+                .thenReturn(Optional.of(draftWithLine("100 Gram flour", 100.0, "Gram", "flour")));
+        when(visionRecipeExtractor.extractPage(any(), anyString(), any()))
+                .thenReturn(Optional.of(draftWithLine("1 cup water", 1.0, "cup", "water")));
+
+        importService.importFromImage(new byte[]{9}, "image/jpeg");
+        importService.importFromImages(List.of(
+                new ImageUpload(new byte[]{1}, "image/jpeg"),
+                new ImageUpload(new byte[]{2}, "image/jpeg")));
+
+        verify(visionRecipeExtractor).extract(any(), anyString(), eq(AnthropicRateLimiter.Priority.INTERACTIVE));
+        verify(visionRecipeExtractor, times(2))
+                .extractPage(any(), anyString(), eq(AnthropicRateLimiter.Priority.INTERACTIVE));
+        verify(visionRecipeExtractor, never()).extractPage(any(), anyString(), eq(AnthropicRateLimiter.Priority.BULK));
+    }
+
+    @Test
+    void throwsWhenNoImagePageCanBeRead() {
+        when(visionRecipeExtractor.extractPage(any(), anyString(), any())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> importService.importFromImages(List.of(new ImageUpload(new byte[]{1}, "image/png"))))
+                .isInstanceOf(RecipeImportException.class);
+    }
+
+    @Test
+    void failsNamingPagesWhoseCallFailedRatherThanDroppingThem() {
+        byte[] page1 = {1};
+        byte[] page2 = {2};
+        byte[] page3 = {3};
+        when(visionRecipeExtractor.extractPage(page1, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE))
+                .thenReturn(Optional.of(draftWithLine("100 Gram flour", 100.0, "Gram", "flour")));
+        when(visionRecipeExtractor.extractPage(page2, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE))
+                .thenThrow(new AnthropicUnavailableException("Anthropic vision bulkhead is full"));
+        when(visionRecipeExtractor.extractPage(page3, "image/jpeg", AnthropicRateLimiter.Priority.INTERACTIVE))
+                .thenThrow(new AnthropicApiException("Rate limited: 429"));
+
+        assertThatThrownBy(() -> importService.importFromImages(List.of(
+                new ImageUpload(page1, "image/jpeg"),
+                new ImageUpload(page2, "image/jpeg"),
+                new ImageUpload(page3, "image/jpeg"))))
+                .isInstanceOfSatisfying(ImagePagesUnavailableException.class,
+                        e -> assertThat(e.getFailedPages()).containsExactly(2, 3));
+    }
+
     @Test
     void resolvesUnitByName() {
         var draft = draftWithLine("100 Gram flour", 100.0, "Gram", "flour");
@@ -75,6 +160,61 @@ class ImportServiceTest {
         assertThat(result.getIngredientLines().getFirst().getResolvedUnit()).isEqualTo(gramUnit);
     }
 
+    @Test
+    void recordsWinningExtractorAndResolutionOutcomes() {
+        var draft = draftWithLine("2 cups sugar", 2.0, "cup", "sugar");
+        draft.setExtractionSource("SCHEMA_ORG");
+        when(recipeExtractor.extract(anyString(), anyString())).thenReturn(Optional.of(draft));
+
+        importService.importFromUrl("https://example.com");
+
+        assertThat(meterRegistry.get("recipe.import.drafts").tag("source", "SCHEMA_ORG").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("recipe.import.resolution")
+                .tags("target", "unit", "strategy", "exact", "outcome", "hit").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("recipe.import.resolution")
+                .tags("target", "ingredient", "strategy", "exact", "outcome", "miss").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("recipe.import.resolution")
+                .tags("target", "ingredient", "strategy", "alias", "outcome", "miss").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void resolvesUnknownNameThroughAliasIndex() {
+        var draft = draftWithLine("2 cups plain flour", 2.0, "cup", "plain flour");
+        when(recipeExtractor.extract(anyString(), anyString())).thenReturn(Optional.of(draft));
+        when(ingredientAliasService.findTarget("plain flour")).thenReturn(Optional.of(new AliasTarget(1L, 1L, 3)));
+
+        var line = importService.importFromUrl("https://example.com").getIngredientLines().getFirst();
+
+        // The cup matched by name, so the alias only supplies the ingredient.
+        assertThat(line.getResolvedIngredient()).isEqualTo(flourIngredient);
+        assertThat(line.getResolvedUnit()).isEqualTo(cupUnit);
+    }
+
+    @Test
+    void aliasSuppliesTheUnitWhenTheHintIsUnknown() {
+        var draft = draftWithLine("2 handfuls plain flour", 2.0, "handful", "plain flour");
+        when(recipeExtractor.extract(anyString(), anyString())).thenReturn(Optional.of(draft));
+        when(ingredientAliasService.findTarget("plain flour")).thenReturn(Optional.of(new AliasTarget(1L, 1L, 3)));
+
+        var line = importService.importFromUrl("https://example.com").getIngredientLines().getFirst();
+
+        assertThat(line.getResolvedIngredient()).isEqualTo(flourIngredient);
+        assertThat(line.getResolvedUnit()).isEqualTo(gramUnit);
+    }
+
+    @Test
+    void confirmRecordsLinesAsAliases() {
+        List<IngredientAliasDto> lines = List.of(new IngredientAliasDto("plain flour", 1L, 1L));
+
+        importService.confirm(lines);
+
+        verify(ingredientAliasService).confirm(lines);
+    }
+
     @Test
     void resolvesUnitByAbbreviation() {
         var draft = draftWithLine("100 g flour", 100.0, "g", "flour");
@@ -0,0 +1,94 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.maxgarfinkel.recipes.CatalogueVersion;
+import com.maxgarfinkel.recipes.ingredient.AliasTarget;
+import com.maxgarfinkel.recipes.ingredient.IngredientAliasService;
+import com.maxgarfinkel.recipes.ingredient.IngredientDto;
+import com.maxgarfinkel.recipes.ingredient.IngredientService;
+import com.maxgarfinkel.recipes.unit.UnitDto;
+import com.maxgarfinkel.recipes.unit.UnitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IngredientResolverTest {
+
+    private UnitService unitService;
+    private IngredientService ingredientService;
+    private IngredientAliasService ingredientAliasService;
+    private CatalogueVersion catalogueVersion;
+    private IngredientResolver resolver;
+
+    private final UnitDto gramUnit = new UnitDto(1L, "Gram", "g", null, 1.0);
+    private final IngredientDto flourIngredient = new IngredientDto("flour", 1L, gramUnit);
+
+    @BeforeEach
+    void setUp() {
+        unitService = mock(UnitService.class);
+        ingredientService = mock(IngredientService.class);
+        ingredientAliasService = mock(IngredientAliasService.class);
+        catalogueVersion = new CatalogueVersion();
+        resolver = new IngredientResolver(unitService, ingredientService, ingredientAliasService,
+                catalogueVersion, new ImportMetrics(new SimpleMeterRegistry()));
+
+        when(unitService.getUnitsAsDtos()).thenReturn(List.of(gramUnit));
+        when(ingredientService.getAllAsDto()).thenReturn(List.of(flourIngredient));
+        when(ingredientAliasService.findTarget(any())).thenReturn(Optional.empty());
+    }
+
+    private RecipeImportDraft.ImportedIngredientLine line(Double quantity, String unitHint, String ingredientHint) {
+        RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+        line.setRawText("line");
+        line.setQuantity(quantity);
+        line.setUnitNameHint(unitHint);
+        line.setIngredientNameHint(ingredientHint);
+        return line;
+    }
+
+    @Test
+    void exactUnitAndIngredient_fullyConfident() {
+        assertThat(resolver.confidence(line(200.0, "G", "Flour"))).isEqualTo(1.0);
+    }
+
+    @Test
+    void missingQuantityOrHints_notConfident() {
+        assertThat(resolver.confidence(line(null, "g", "flour"))).isZero();
+        assertThat(resolver.confidence(line(200.0, null, "flour"))).isZero();
+        assertThat(resolver.confidence(line(200.0, "g", null))).isZero();
+    }
+
+    @Test
+    void partialAndNoMatch_scoreBelowExact() {
+        assertThat(resolver.confidence(line(200.0, "g", "saffron"))).isEqualTo(0.5);
+        assertThat(resolver.confidence(line(2.0, "handful", "saffron"))).isEqualTo(0.25);
+    }
+
+    @Test
+    void aliasConfidence_growsWithConfirmations() {
+        when(ingredientAliasService.findTarget("plain flour")).thenReturn(Optional.of(new AliasTarget(1L, 1L, 1)));
+        double once = resolver.confidence(line(200.0, "g", "plain flour"));
+        when(ingredientAliasService.findTarget("plain flour")).thenReturn(Optional.of(new AliasTarget(1L, 1L, 5)));
+        double often = resolver.confidence(line(200.0, "g", "plain flour"));
+
+        assertThat(once).isLessThan(often);
+        assertThat(often).isEqualTo(1.0);
+    }
+
+    @Test
+    void lookupMapsRebuiltOnlyWhenCatalogueChanges() {
+        resolver.confidence(line(200.0, "g", "flour"));
+        resolver.confidence(line(200.0, "g", "flour"));
+        verify(ingredientService, times(1)).getAllAsDto();
+
+        catalogueVersion.increment();
+        resolver.confidence(line(200.0, "g", "flour"));
+        verify(ingredientService, times(2)).getAllAsDto();
+    }
+}
@@ -2,12 +2,17 @@ package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -19,18 +24,21 @@ class LlmExtractorTest {
             "Extract the recipe and return ONLY JSON.\n\nText:\n{text}";
 
     private AnthropicClient anthropicClient;
+    private ImportAuditService importAudit;
     private LlmExtractor extractor;
     private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         objectMapper = new ObjectMapper();
-        RecipeImportDraftParser parser = new RecipeImportDraftParser(objectMapper);
+        RecipeImportDraftParser parser = new RecipeImportDraftParser(objectMapper, new ImportMetrics(new SimpleMeterRegistry()));
         anthropicClient = mock(AnthropicClient.class);
+        importAudit = mock(ImportAuditService.class);
         PromptBuilder promptBuilder = mock(PromptBuilder.class);
         when(promptBuilder.buildTextPrompt(any(), any()))
-                .thenAnswer(inv -> ((String) inv.getArgument(0)).replace("{text}", inv.getArgument(1)));
-        extractor = new LlmExtractor(anthropicClient, parser, promptBuilder, "claude-haiku-4-5-20251001", TEST_PROMPT_TEMPLATE);
+                .thenAnswer(inv -> new PromptBuilder.Prompt(inv.getArgument(0), inv.getArgument(1)));
+        extractor = new LlmExtractor(anthropicClient, parser, promptBuilder, new StructuredOutput(objectMapper, true),
+                importAudit, "claude-haiku-4-5-20251001", TEST_PROMPT_TEMPLATE);
         when(anthropicClient.isConfigured()).thenReturn(true);
     }
 
@@ -50,13 +58,13 @@ class LlmExtractorTest {
         var result = extractor.extract("<html/>", "https://example.com");
 
         assertThat(result).isEmpty();
-        verify(anthropicClient, never()).sendMessages(any());
+        verify(anthropicClient, never()).sendMessages(any(), any(), any());
     }
 
     @Test
     void successfulApiResponse_populatesDraft() throws Exception {
         String json = "{\"name\":\"Cake\",\"servings\":4,\"method\":\"Mix and bake.\",\"ingredients\":[{\"rawText\":\"2 cups flour\",\"quantity\":2,\"unitName\":\"cup\",\"ingredientName\":\"flour\"}]}";
-        when(anthropicClient.sendMessages(any())).thenReturn(anthropicResponse(json));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(json));
 
         var result = extractor.extract("<html><body>Cake recipe: 2 cups flour, mix and bake.</body></html>", "https://example.com");
 
@@ -73,7 +81,7 @@ class LlmExtractorTest {
 
     @Test
     void apiThrowsAnthropicApiException_returnsEmpty() {
-        when(anthropicClient.sendMessages(any())).thenThrow(new AnthropicApiException("Server error: 500"));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenThrow(new AnthropicApiException("Server error: 500"));
 
         var result = extractor.extract("<html><body>A recipe</body></html>", "https://example.com");
 
@@ -82,7 +90,7 @@ class LlmExtractorTest {
 
     @Test
     void malformedJsonResponse_returnsEmpty() throws Exception {
-        when(anthropicClient.sendMessages(any())).thenReturn(
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(
                 objectMapper.readTree("{\"content\": [{\"type\": \"text\", \"text\": \"{not valid json}\"}]}"));
 
         var result = extractor.extract("<html><body>A recipe</body></html>", "https://example.com");
@@ -93,7 +101,7 @@ class LlmExtractorTest {
     @Test
     void responseWrappedInMarkdownFences_stillParsedCorrectly() throws Exception {
         String fencedContent = "```json\n{\"name\":\"Soup\",\"servings\":2,\"method\":\"Boil.\",\"ingredients\":[]}\n```";
-        when(anthropicClient.sendMessages(any())).thenReturn(anthropicResponse(fencedContent));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(fencedContent));
 
         var result = extractor.extract("<html><body>Soup recipe</body></html>", "https://example.com");
 
@@ -104,7 +112,7 @@ class LlmExtractorTest {
     @Test
     void responseFailsSchemaValidation_returnsEmpty() throws Exception {
         // Valid JSON but missing required "name" and "ingredients" fields
-        when(anthropicClient.sendMessages(any())).thenReturn(
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(
                 objectMapper.readTree("{\"content\": [{\"type\": \"text\", \"text\": \"{\\\"foo\\\": \\\"bar\\\"}\"}]}"));
 
         var result = extractor.extract("<html><body>A recipe</body></html>", "https://example.com");
@@ -115,10 +123,95 @@ class LlmExtractorTest {
     @Test
     void sendMessages_calledWithCorrectModel() throws Exception {
         String json = "{\"name\":\"Cake\",\"servings\":1,\"method\":\"Bake.\",\"ingredients\":[]}";
-        when(anthropicClient.sendMessages(any())).thenReturn(anthropicResponse(json));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(json));
+
+        extractor.extract("<html><body>Cake</body></html>", "https://example.com");
+
+        verify(anthropicClient).sendMessages(argThat(body -> body.toString().contains("claude-haiku-4-5-20251001")), any(), any());
+    }
+
+    @Test
+    void sendMessages_queuesInteractiveByDefaultAndBulkWhenAsked() throws Exception {
+        String json = "{\"name\":\"Cake\",\"servings\":1,\"method\":\"Bake.\",\"ingredients\":[]}";
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(json));
+
+        extractor.extract("<html><body>Cake</body></html>", "https://example.com");
+        extractor.extract("<html><body>Cake</body></html>", "https://example.com", AnthropicRateLimiter.Priority.BULK);
+
+        verify(anthropicClient).sendMessages(any(), eq(AnthropicClient.Lane.TEXT), eq(AnthropicRateLimiter.Priority.INTERACTIVE));
+        verify(anthropicClient).sendMessages(any(), eq(AnthropicClient.Lane.TEXT), eq(AnthropicRateLimiter.Priority.BULK));
+    }
+
+    @Test
+    void toolUseResponse_parsedWithoutText() throws Exception {
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(objectMapper.readTree("""
+                {"content": [{"type": "tool_use", "id": "toolu_1", "name": "record_recipe",
+                  "input": {"name": "Stew", "servings": 6, "method": "Simmer.",
+                            "ingredients": [{"rawText": "1 kg beef", "quantity": 1, "unitName": "kg", "ingredientName": "beef"}]}}]}"""));
+
+        var result = extractor.extract("<html><body>Stew</body></html>", "https://example.com");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getName()).isEqualTo("Stew");
+        assertThat(result.get().getServings()).isEqualTo(6);
+        assertThat(result.get().getIngredientLines().getFirst().getIngredientNameHint()).isEqualTo("beef");
+    }
+
+    @Test
+    void sendMessages_forcesTheRecipeTool() throws Exception {
+        String json = "{\"name\":\"Cake\",\"servings\":1,\"method\":\"Bake.\",\"ingredients\":[]}";
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(json));
 
         extractor.extract("<html><body>Cake</body></html>", "https://example.com");
 
-        verify(anthropicClient).sendMessages(argThat(body -> body.toString().contains("claude-haiku-4-5-20251001")));
+        verify(anthropicClient).sendMessages(argThat(body -> body instanceof Map<?, ?> map
+                && map.get("tool_choice").toString().contains("record_recipe")
+                && map.get("tools").toString().contains("rawText")), any(), any());
+    }
+
+    @Test
+    void sendMessages_putsTheStaticPrefixInACachedSystemBlock() throws Exception {
+        String json = "{\"name\":\"Cake\",\"servings\":1,\"method\":\"Bake.\",\"ingredients\":[]}";
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(anthropicResponse(json));
+
+        extractor.extract("<html><body>Cake</body></html>", "https://example.com");
+
+        verify(anthropicClient).sendMessages(argThat(body -> body instanceof Map<?, ?> map
+                && map.get("system").toString().contains("cache_control")
+                && map.get("system").toString().contains("Extract the recipe")
+                && !map.get("messages").toString().contains("Extract the recipe")), any(), any());
+    }
+
+    @Test
+    void answeredCalls_areAuditedWithTheirParseOutcome() throws Exception {
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(
+                objectMapper.readTree("{\"content\": [{\"type\": \"text\", \"text\": \"{not valid json}\"}]}"));
+
+        extractor.extract("<html><body>A recipe</body></html>", "https://example.com");
+
+        verify(importAudit).record(argThat(call -> !call.parsed()
+                && call.response().equals("{not valid json}")
+                && call.userPrompt().equals("A recipe")
+                && call.sourceUrl().equals("https://example.com")));
+    }
+
+    @Test
+    void failedCalls_areNotAudited() {
+        when(anthropicClient.sendMessages(any(), any(), any())).thenThrow(new AnthropicApiException("Server error: 500"));
+
+        extractor.extract("<html><body>A recipe</body></html>", "https://example.com");
+
+        verify(importAudit, never()).record(any());
+    }
+
+    @Test
+    void cancelledStream_propagatesInsteadOfReturningEmpty() {
+        when(anthropicClient.streamMessages(any(), any(), any()))
+                .thenThrow(new ImportCancelledException("Import stream client disconnected", null));
+
+        assertThatThrownBy(() -> extractor.extract("<html><body>A recipe</body></html>", "https://example.com",
+                mock(DraftListener.class)))
+                .isInstanceOf(ImportCancelledException.class);
+        verify(importAudit, never()).record(any());
     }
 }
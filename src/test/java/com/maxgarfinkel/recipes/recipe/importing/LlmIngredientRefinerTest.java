@@ -2,6 +2,7 @@ package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -9,6 +10,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -29,10 +31,9 @@ class LlmIngredientRefinerTest {
         anthropicClient = mock(AnthropicClient.class);
         PromptBuilder promptBuilder = mock(PromptBuilder.class);
         when(promptBuilder.buildIngredientPrompt(any(), any()))
-                .thenAnswer(inv -> ((String) inv.getArgument(0))
-                        .replace("{ingredients}", inv.getArgument(1))
-                        .replace("{context}", ""));
+                .thenAnswer(inv -> new PromptBuilder.Prompt(inv.getArgument(0), inv.getArgument(1)));
         refiner = new LlmIngredientRefiner(anthropicClient, objectMapper, promptBuilder,
+                new ImportMetrics(new SimpleMeterRegistry()), new StructuredOutput(objectMapper, true),
                 "claude-haiku-4-5-20251001", TEST_PROMPT_TEMPLATE);
         when(anthropicClient.isConfigured()).thenReturn(true);
     }
@@ -49,7 +50,7 @@ class LlmIngredientRefinerTest {
         var result = refiner.refine(List.of("200g flour"));
 
         assertThat(result).isEmpty();
-        verify(anthropicClient, never()).sendMessages(any());
+        verify(anthropicClient, never()).sendMessages(any(), any(), any());
     }
 
     @Test
@@ -57,13 +58,13 @@ class LlmIngredientRefinerTest {
         var result = refiner.refine(List.of());
 
         assertThat(result).isEmpty();
-        verify(anthropicClient, never()).sendMessages(any());
+        verify(anthropicClient, never()).sendMessages(any(), any(), any());
     }
 
     @Test
     void successfulResponse_parsesLines() throws Exception {
         String json = "[{\"rawText\":\"2 finely chopped onions\",\"quantity\":2,\"unitName\":\"unit\",\"ingredientName\":\"onion\"}]";
-        when(anthropicClient.sendMessages(any())).thenReturn(llmResponse(json));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(llmResponse(json));
 
         var result = refiner.refine(List.of("2 finely chopped onions"));
 
@@ -74,12 +75,13 @@ class LlmIngredientRefinerTest {
         assertThat(lines.getFirst().getQuantity()).isEqualTo(2.0);
         assertThat(lines.getFirst().getUnitNameHint()).isEqualTo("unit");
         assertThat(lines.getFirst().getIngredientNameHint()).isEqualTo("onion");
+        verify(anthropicClient).sendMessages(any(), eq(AnthropicClient.Lane.TEXT), eq(AnthropicRateLimiter.Priority.INTERACTIVE));
     }
 
     @Test
     void nullQuantityAndUnit_parsedCorrectly() throws Exception {
         String json = "[{\"rawText\":\"salt to taste\",\"quantity\":null,\"unitName\":null,\"ingredientName\":\"salt\"}]";
-        when(anthropicClient.sendMessages(any())).thenReturn(llmResponse(json));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(llmResponse(json));
 
         var result = refiner.refine(List.of("salt to taste"));
 
@@ -93,7 +95,7 @@ class LlmIngredientRefinerTest {
     @Test
     void responseWrappedInMarkdownFences_stillParsed() throws Exception {
         String fenced = "```json\n[{\"rawText\":\"1 egg\",\"quantity\":1,\"unitName\":\"unit\",\"ingredientName\":\"egg\"}]\n```";
-        when(anthropicClient.sendMessages(any())).thenReturn(llmResponse(fenced));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(llmResponse(fenced));
 
         var result = refiner.refine(List.of("1 egg"));
 
@@ -106,7 +108,7 @@ class LlmIngredientRefinerTest {
         // LLM returns 2 items for 1 input
         String json = "[{\"rawText\":\"1 egg\",\"quantity\":1,\"unitName\":\"unit\",\"ingredientName\":\"egg\"}," +
                 "{\"rawText\":\"extra\",\"quantity\":null,\"unitName\":null,\"ingredientName\":\"extra\"}]";
-        when(anthropicClient.sendMessages(any())).thenReturn(llmResponse(json));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(llmResponse(json));
 
         var result = refiner.refine(List.of("1 egg"));
 
@@ -115,7 +117,7 @@ class LlmIngredientRefinerTest {
 
     @Test
     void apiThrowsException_returnsEmpty() {
-        when(anthropicClient.sendMessages(any())).thenThrow(new AnthropicApiException("Server error: 500"));
+        when(anthropicClient.sendMessages(any(), any(), any())).thenThrow(new AnthropicApiException("Server error: 500"));
 
         var result = refiner.refine(List.of("200g flour"));
 
@@ -124,11 +126,24 @@ class LlmIngredientRefinerTest {
 
     @Test
     void malformedJsonResponse_returnsEmpty() throws Exception {
-        when(anthropicClient.sendMessages(any())).thenReturn(
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(
                 objectMapper.readTree("{\"content\": [{\"type\": \"text\", \"text\": \"{not an array}\"}]}"));
 
         var result = refiner.refine(List.of("200g flour"));
 
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void toolUseResponse_readsIngredientsFromToolInput() throws Exception {
+        when(anthropicClient.sendMessages(any(), any(), any())).thenReturn(objectMapper.readTree("""
+                {"content": [{"type": "tool_use", "id": "toolu_1", "name": "record_ingredients",
+                  "input": {"ingredients": [{"rawText": "200g flour", "quantity": 200, "unitName": "g", "ingredientName": "flour"}]}}]}"""));
+
+        var result = refiner.refine(List.of("200g flour"));
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getFirst().getQuantity()).isEqualTo(200.0);
+        assertThat(result.get().getFirst().getIngredientNameHint()).isEqualTo("flour");
+    }
 }
@@ -0,0 +1,79 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecipeImportDraftParserTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecipeImportDraftParser parser =
+            new RecipeImportDraftParser(new ObjectMapper(), new ImportMetrics(meterRegistry));
+
+    @Test
+    void bindsAllFieldsAndSkipsUnknownOnes() throws Exception {
+        String json = """
+                {"name": "Soup", "servings": 4.0, "notes": {"ingredients": "ignored"},
+                 "ingredients": [
+                   {"rawText": "1 onion", "quantity": 1, "unitName": null, "ingredientName": "onion", "extra": [1, 2]},
+                   {"rawText": "1.5 l stock", "quantity": 1.5, "unitName": "l"}
+                 ],
+                 "method": "Simmer."}""";
+
+        RecipeImportDraft draft = parser.parse(json, "https://example.com", "LLM");
+
+        assertThat(draft.getName()).isEqualTo("Soup");
+        assertThat(draft.getServings()).isEqualTo(4);
+        assertThat(draft.getMethod()).isEqualTo("Simmer.");
+        assertThat(draft.getSourceUrl()).isEqualTo("https://example.com");
+        assertThat(draft.getExtractionSource()).isEqualTo("LLM");
+        assertThat(draft.getIngredientLines()).hasSize(2);
+        assertThat(draft.getIngredientLines().get(0).getIngredientNameHint()).isEqualTo("onion");
+        assertThat(draft.getIngredientLines().get(0).getUnitNameHint()).isNull();
+        assertThat(draft.getIngredientLines().get(1).getQuantity()).isEqualTo(1.5);
+        assertThat(draft.getIngredientLines().get(1).getIngredientNameHint()).isNull();
+    }
+
+    @Test
+    void reportsEveryViolationWithItsPath() {
+        String json = """
+                {"name": "", "servings": "four",
+                 "ingredients": [{"quantity": "2"}, "2 eggs", {"rawText": "salt", "unitName": 3}]}""";
+
+        assertThatThrownBy(() -> parser.parse(json, null, "VISION"))
+                .isInstanceOf(RecipeSchemaValidationException.class)
+                .hasMessageContaining("$.name: must be at least 1 characters long")
+                .hasMessageContaining("$.servings: string found, [integer, null] expected")
+                .hasMessageContaining("$.ingredients[0].quantity: string found, [number, null] expected")
+                .hasMessageContaining("$.ingredients[0]: required property 'rawText' not found")
+                .hasMessageContaining("$.ingredients[1]: string found, object expected")
+                .hasMessageContaining("$.ingredients[2].unitName: integer found, [string, null] expected");
+        assertThat(meterRegistry.get("recipe.import.schema.failures").tag("source", "VISION").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void reportsMissingRequiredFields() {
+        assertThatThrownBy(() -> parser.parse("{\"foo\": \"bar\"}", null, "LLM"))
+                .isInstanceOf(RecipeSchemaValidationException.class)
+                .hasMessageContaining("$: required property 'name' not found")
+                .hasMessageContaining("$: required property 'ingredients' not found");
+    }
+
+    @Test
+    void rejectsNonObjectResponses() {
+        assertThatThrownBy(() -> parser.parse("[]", null, "LLM"))
+                .isInstanceOf(RecipeSchemaValidationException.class)
+                .hasMessageContaining("$: array found, object expected");
+    }
+
+    @Test
+    void malformedJsonStillFailsAsAParseError() {
+        assertThatThrownBy(() -> parser.parse("{not valid json}", null, "LLM"))
+                .isInstanceOf(JsonParseException.class);
+    }
+}
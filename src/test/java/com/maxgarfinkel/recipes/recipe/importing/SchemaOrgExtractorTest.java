@@ -1,6 +1,7 @@
 package com.maxgarfinkel.recipes.recipe.importing;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -10,18 +11,23 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class SchemaOrgExtractorTest {
 
     private SchemaOrgExtractor extractor;
     private LlmIngredientRefiner ingredientRefiner;
+    private IngredientResolver ingredientResolver;
 
     @BeforeEach
     void setUp() {
         ingredientRefiner = mock(LlmIngredientRefiner.class);
         when(ingredientRefiner.refine(any())).thenReturn(Optional.empty());
-        extractor = new SchemaOrgExtractor(new ObjectMapper(), ingredientRefiner);
+        ingredientResolver = mock(IngredientResolver.class);
+        extractor = new SchemaOrgExtractor(new ObjectMapper(), ingredientRefiner, ingredientResolver,
+                new ImportMetrics(new SimpleMeterRegistry()), 0.8);
     }
 
     private String htmlWithJsonLd(String jsonLd) {
@@ -264,4 +270,43 @@ class SchemaOrgExtractorTest {
         assertThat(result).isPresent();
         assertThat(result.get().getName()).isEqualTo("Cookies");
     }
+
+    @Test
+    void everyLineConfident_skipsLlmRefinement() {
+        when(ingredientResolver.confidence(any())).thenReturn(1.0);
+        String html = htmlWithJsonLd("""
+                {"@type": "Recipe", "name": "Bread", "recipeIngredient": ["500g flour", "10g salt"]}
+                """);
+
+        var result = extractor.extract(html, "https://example.com");
+
+        assertThat(result).isPresent();
+        assertThat(result.get().getIngredientLines()).hasSize(2);
+        verify(ingredientRefiner, never()).refine(any());
+    }
+
+    @Test
+    void onlyUncertainLinesAreRefined_andMergedBackByPosition() {
+        when(ingredientResolver.confidence(any())).thenAnswer(inv ->
+                ((RecipeImportDraft.ImportedIngredientLine) inv.getArgument(0)).getRawText().contains("pinch") ? 0.25 : 1.0);
+        RecipeImportDraft.ImportedIngredientLine refined = new RecipeImportDraft.ImportedIngredientLine();
+        refined.setRawText("a pinch of saffron");
+        refined.setQuantity(1.0);
+        refined.setUnitNameHint("pinch");
+        refined.setIngredientNameHint("saffron");
+        when(ingredientRefiner.refine(List.of("a pinch of saffron"))).thenReturn(Optional.of(List.of(refined)));
+        String html = htmlWithJsonLd("""
+                {"@type": "Recipe", "name": "Paella",
+                 "recipeIngredient": ["300g rice", "a pinch of saffron", "1l stock"]}
+                """);
+
+        var lines = extractor.extract(html, "https://example.com").orElseThrow().getIngredientLines();
+
+        assertThat(lines).extracting(RecipeImportDraft.ImportedIngredientLine::getRawText)
+                .containsExactly("300g rice", "a pinch of saffron", "1l stock");
+        assertThat(lines.get(0).getUnitNameHint()).isEqualTo("g");
+        assertThat(lines.get(1).getIngredientNameHint()).isEqualTo("saffron");
+        assertThat(lines.get(2).getQuantity()).isEqualTo(1.0);
+        verify(ingredientRefiner).refine(List.of("a pinch of saffron"));
+    }
 }
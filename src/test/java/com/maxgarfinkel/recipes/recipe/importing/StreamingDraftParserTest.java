@@ -0,0 +1,93 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingDraftParserTest {
+
+    private static final String RESPONSE = """
+            ```json
+            {
+              "name": "Crème brûlée",
+              "servings": 4,
+              "notes": {"name": "ignored", "ingredients": [{"rawText": "ignored"}]},
+              "ingredients": [
+                {"rawText": "500 ml double cream", "quantity": 500, "unitName": "ml", "ingredientName": "double cream"},
+                {"rawText": "pinch of salt", "quantity": null, "unitName": null, "ingredientName": "salt"},
+                {"rawText": "1.5 tbsp sugar", "quantity": 1.5, "unitName": "tbsp", "ingredientName": "sugar"}
+              ],
+              "method": "Bake gently."
+            }
+            ```""";
+
+    private final List<String> events = new ArrayList<>();
+    private final List<RecipeImportDraft.ImportedIngredientLine> lines = new ArrayList<>();
+
+    private final DraftListener listener = new DraftListener() {
+        @Override
+        public void onName(String name) {
+            events.add("name:" + name);
+        }
+
+        @Override
+        public void onServings(int servings) {
+            events.add("servings:" + servings);
+        }
+
+        @Override
+        public void onMethod(String method) {
+            events.add("method:" + method);
+        }
+
+        @Override
+        public void onIngredientLine(int index, RecipeImportDraft.ImportedIngredientLine line) {
+            events.add("ingredient:" + index);
+            lines.add(line);
+        }
+    };
+
+    @Test
+    void reportsFieldsInOrderWhenFedOneCharacterAtATime() {
+        StreamingDraftParser parser = new StreamingDraftParser(listener);
+
+        RESPONSE.codePoints().forEach(c -> parser.feed(Character.toString(c)));
+
+        assertThat(events).containsExactly("name:Crème brûlée", "servings:4",
+                "ingredient:0", "ingredient:1", "ingredient:2", "method:Bake gently.");
+        assertThat(lines.get(0).getQuantity()).isEqualTo(500.0);
+        assertThat(lines.get(0).getUnitNameHint()).isEqualTo("ml");
+        assertThat(lines.get(0).getIngredientNameHint()).isEqualTo("double cream");
+        assertThat(lines.get(1).getQuantity()).isNull();
+        assertThat(lines.get(1).getUnitNameHint()).isNull();
+        assertThat(lines.get(2).getQuantity()).isEqualTo(1.5);
+    }
+
+    @Test
+    void reportsEachLineAsSoonAsItCloses() {
+        StreamingDraftParser parser = new StreamingDraftParser(listener);
+
+        parser.feed("{\"name\": \"Soup\", \"ingredients\": [{\"rawText\": \"1 onion\"}");
+        assertThat(events).containsExactly("name:Soup", "ingredient:0");
+
+        parser.feed(", {\"rawText\": \"2 carr");
+        assertThat(events).hasSize(2);
+
+        parser.feed("ots\"}]}");
+        assertThat(events).containsExactly("name:Soup", "ingredient:0", "ingredient:1");
+        assertThat(lines.get(1).getRawText()).isEqualTo("2 carrots");
+    }
+
+    @Test
+    void stopsQuietlyOnMalformedInput() {
+        StreamingDraftParser parser = new StreamingDraftParser(listener);
+
+        parser.feed("{\"name\": \"Soup\", \"servings\": }");
+        parser.feed(", \"method\": \"Stir.\"}");
+
+        assertThat(events).containsExactly("name:Soup");
+    }
+}
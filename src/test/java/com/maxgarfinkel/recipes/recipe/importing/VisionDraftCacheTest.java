@@ -0,0 +1,78 @@
+package com.maxgarfinkel.recipes.recipe.importing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisionDraftCacheTest {
+
+    private final VisionDraftCache cache =
+            new VisionDraftCache(100, Duration.ofHours(1), 6, 200, new ImportMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void findsByteIdenticalImagesEvenWithoutAPerceptualHash() {
+        cache.put(image("a1", null, 0), draft("Soup"));
+
+        assertThat(cache.find(image("a1", null, 0))).map(RecipeImportDraft::getName).contains("Soup");
+        assertThat(cache.find(image("b2", null, 0))).isEmpty();
+    }
+
+    @Test
+    void nearMatchesNeedBothHashesWithinTheirThresholds() {
+        cache.put(image("a1", 0b1011L, 0), draft("Soup"));
+
+        assertThat(cache.find(image("b2", 0b1011L ^ 0b111111L, 200))).map(RecipeImportDraft::getName).contains("Soup");
+        assertThat(cache.find(image("c3", 0b1011L ^ 0b1111111L, 0))).isEmpty();
+        // Coarse hashes agree, as they often do for two pages set in the same layout, but the detail doesn't.
+        assertThat(cache.find(image("d4", 0b1011L, 201))).isEmpty();
+    }
+
+    @Test
+    void prefersTheClosestDetailMatch() {
+        cache.put(image("a1", 0L, 0), draft("Soup"));
+        cache.put(image("b2", 0b111L, 150), draft("Stew"));
+
+        assertThat(cache.find(image("c3", 0b11L, 140))).map(RecipeImportDraft::getName).contains("Stew");
+    }
+
+    @Test
+    void returnsCopiesThatCallersCanResolve() {
+        RecipeImportDraft original = draft("Soup");
+        cache.put(image("a1", 42L, 0), original);
+        original.getIngredientLines().get(0).setRawText("changed after put");
+
+        RecipeImportDraft hit = cache.find(image("a1", 42L, 0)).orElseThrow();
+        hit.getIngredientLines().get(0).setIngredientNameHint("resolved by caller");
+
+        RecipeImportDraft again = cache.find(image("a1", 42L, 0)).orElseThrow();
+        assertThat(again.getIngredientLines().get(0).getRawText()).isEqualTo("1 onion");
+        assertThat(again.getIngredientLines().get(0).getIngredientNameHint()).isEqualTo("onion");
+    }
+
+    /** A prepared image whose detail hash has its first {@code detailBits} bits set. */
+    private static ImagePreprocessor.PreparedImage image(String sha256, Long hash, int detailBits) {
+        long[] detail = null;
+        if (hash != null) {
+            detail = new long[(PerceptualHash.DETAIL_BITS + 63) / 64];
+            for (int bit = 0; bit < detailBits; bit++) {
+                detail[bit / 64] |= 1L << (bit % 64);
+            }
+        }
+        return new ImagePreprocessor.PreparedImage(new byte[0], "image/jpeg", sha256, hash, detail);
+    }
+
+    private static RecipeImportDraft draft(String name) {
+        RecipeImportDraft.ImportedIngredientLine line = new RecipeImportDraft.ImportedIngredientLine();
+        line.setRawText("1 onion");
+        line.setIngredientNameHint("onion");
+        RecipeImportDraft draft = new RecipeImportDraft();
+        draft.setName(name);
+        draft.setExtractionSource("VISION");
+        draft.setIngredientLines(List.of(line));
+        return draft;
+    }
+}
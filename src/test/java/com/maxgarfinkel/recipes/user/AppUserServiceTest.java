@@ -0,0 +1,54 @@
+package com.maxgarfinkel.recipes.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.*;
+
+class AppUserServiceTest {
+
+    private AppUserRepository appUserRepository;
+    private AppUserService appUserService;
+
+    @BeforeEach
+    void setUp() {
+        appUserRepository = mock(AppUserRepository.class);
+        appUserService = new AppUserService(appUserRepository, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void knownSubjectDoesNotHitTheDatabaseAgain() {
+        appUserService.ensureExists("auth0|abc", "Alice");
+        appUserService.ensureExists("auth0|abc", "Alice");
+        appUserService.ensureExists("auth0|abc", "Alice");
+
+        verify(appUserRepository, times(1)).insertIfAbsent("auth0|abc", "Alice");
+        verifyNoMoreInteractions(appUserRepository);
+    }
+
+    @Test
+    void eachNewSubjectIsUpsertedOnce() {
+        appUserService.ensureExists("auth0|abc", "Alice");
+        appUserService.ensureExists("auth0|def", "Bob");
+
+        verify(appUserRepository).insertIfAbsent("auth0|abc", "Alice");
+        verify(appUserRepository).insertIfAbsent("auth0|def", "Bob");
+    }
+
+    @Test
+    void failedUpsertIsRetriedOnNextRequest() {
+        when(appUserRepository.insertIfAbsent("auth0|abc", "Alice"))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+
+        try {
+            appUserService.ensureExists("auth0|abc", "Alice");
+        } catch (RuntimeException ignored) {
+        }
+        appUserService.ensureExists("auth0|abc", "Alice");
+
+        verify(appUserRepository, times(2)).insertIfAbsent("auth0|abc", "Alice");
+    }
+}